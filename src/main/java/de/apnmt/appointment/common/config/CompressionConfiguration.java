@@ -0,0 +1,37 @@
+package de.apnmt.appointment.common.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Gzip compression of the JSON responses by the embedded web server, negotiated through {@code Accept-Encoding}.
+ * <p>
+ * Enabled with {@code application.compression.enabled}; responses smaller than {@code application.compression.min-response-size}
+ * are sent as is, as compressing them costs more than it saves.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "application.compression", name = "enabled", havingValue = "true")
+public class CompressionConfiguration {
+
+    @Bean
+    public WebServerFactoryCustomizer<ConfigurableServletWebServerFactory> compressionCustomizer(
+            @Value("${application.compression.min-response-size:2KB}") DataSize minResponseSize
+    ) {
+        return factory -> {
+            Compression compression = new Compression();
+            compression.setEnabled(true);
+            compression.setMimeTypes(new String[]{MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_PROBLEM_JSON_VALUE});
+            compression.setMinResponseSize(minResponseSize);
+            factory.setCompression(compression);
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package de.apnmt.appointment.common.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Applies the defaults of the fast-start mode, enabled by {@code application.fast-start.enabled}.
+ * <p>
+ * Spring Data repositories are bootstrapped deferred, so the {@code EntityManagerFactory} is built in the background
+ * on the application task executor while the rest of the context starts. Explicitly configured values are kept.
+ */
+public class FastStartEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    public static final String ENABLED = "application.fast-start.enabled";
+
+    private static final String BOOTSTRAP_MODE = "spring.data.jpa.repositories.bootstrap-mode";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.getProperty(ENABLED, Boolean.class, false)) {
+            return;
+        }
+        Map<String, Object> defaults = new HashMap<>();
+        if (!environment.containsProperty(BOOTSTRAP_MODE)) {
+            defaults.put(BOOTSTRAP_MODE, "deferred");
+        }
+        environment.getPropertySources().addLast(new MapPropertySource("fastStartDefaults", defaults));
+    }
+}
@@ -0,0 +1,203 @@
+package de.apnmt.appointment.common.config;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.changelog.ChangeSet;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import liquibase.precondition.Precondition;
+import liquibase.precondition.PreconditionLogic;
+import liquibase.precondition.core.ChangeLogPropertyDefinedPrecondition;
+import liquibase.precondition.core.DBMSPrecondition;
+import liquibase.precondition.core.PreconditionContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * {@link SpringLiquibase} skipping the changelog when it has not changed since the last successful update.
+ * <p>
+ * The changelog files are fingerprinted together with the contexts, labels and changelog parameters. After an update
+ * leaving no change set unapplied, the fingerprint is stored with the number of applied change sets in its own
+ * {@code <changelog table>_FINGERPRINT} table, so the tags of the operators are kept. When the stored fingerprint matches
+ * and {@code DATABASECHANGELOG} still holds the same number of change sets, parsing the changelog and validating the
+ * checksums of all applied change sets is skipped.
+ * <p>
+ * Change sets skipped with {@code onFail="CONTINUE"} by preconditions on the database type or changelog parameters only
+ * do not prevent storing the fingerprint, as both are part of it and changing them updates the changelog again. Change
+ * sets skipped by other preconditions, like the ones checking the data, remain unapplied, so the changelog is updated on
+ * every start until they are applied.
+ */
+public class FastStartSpringLiquibase extends SpringLiquibase {
+
+    private static final String FINGERPRINT_TABLE_SUFFIX = "_FINGERPRINT";
+
+    private final Logger log = LoggerFactory.getLogger(FastStartSpringLiquibase.class);
+
+    private boolean migrate = true;
+
+    private String fingerprint;
+
+    @Override
+    public void setShouldRun(boolean shouldRun) {
+        super.setShouldRun(shouldRun);
+        this.migrate = shouldRun;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        if (!this.migrate) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        this.fingerprint = this.computeFingerprint();
+        if (!isDropFirst() && this.fingerprint != null && this.isStoredFingerprint(this.fingerprint)) {
+            this.log.info("Liquibase changelog unchanged, skipped update in {} ms", System.currentTimeMillis() - start);
+            return;
+        }
+        super.afterPropertiesSet();
+        this.log.info("Applied Liquibase changelog in {} ms", System.currentTimeMillis() - start);
+    }
+
+    @Override
+    protected void performUpdate(Liquibase liquibase) throws LiquibaseException {
+        super.performUpdate(liquibase);
+        if (this.fingerprint == null) {
+            return;
+        }
+        List<ChangeSet> unrunChangeSets = liquibase.listUnrunChangeSets(new Contexts(getContexts()), new LabelExpression(getLabels()));
+        long unapplied = unrunChangeSets.stream().filter(changeSet -> !isSkippedByConfiguration(changeSet)).count();
+        if (unapplied > 0) {
+            this.log.info("{} Liquibase change sets are not applied, the changelog fingerprint is not stored", unapplied);
+            return;
+        }
+        this.storeFingerprint(this.fingerprint);
+    }
+
+    /**
+     * Whether the change set is skipped with {@code onFail="CONTINUE"} by preconditions depending on the fingerprinted
+     * configuration only, so it stays skipped until the fingerprint changes.
+     */
+    private static boolean isSkippedByConfiguration(ChangeSet changeSet) {
+        PreconditionContainer preconditions = changeSet.getPreconditions();
+        return preconditions != null && preconditions.getOnFail() == PreconditionContainer.FailOption.CONTINUE
+                && !preconditions.getNestedPreconditions().isEmpty() && dependsOnConfigurationOnly(preconditions);
+    }
+
+    private static boolean dependsOnConfigurationOnly(Precondition precondition) {
+        if (precondition instanceof PreconditionLogic) {
+            return ((PreconditionLogic) precondition).getNestedPreconditions().stream().allMatch(FastStartSpringLiquibase::dependsOnConfigurationOnly);
+        }
+        return precondition instanceof DBMSPrecondition || precondition instanceof ChangeLogPropertyDefinedPrecondition;
+    }
+
+    private String computeFingerprint() {
+        String changeLog = getChangeLog();
+        String location = changeLog.substring(0, changeLog.lastIndexOf('/') + 1) + "**/*";
+        try {
+            Resource[] resources = ResourcePatternUtils.getResourcePatternResolver(getResourceLoader()).getResources(location);
+            Arrays.sort(resources, Comparator.comparing(Resource::getDescription));
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(getContexts()).getBytes(StandardCharsets.UTF_8));
+            digest.update(String.valueOf(getLabels()).getBytes(StandardCharsets.UTF_8));
+            Map<String, String> parameters = getChangeLogParameters() != null ? new TreeMap<>(getChangeLogParameters()) : new TreeMap<>();
+            digest.update(parameters.toString().getBytes(StandardCharsets.UTF_8));
+            for (Resource resource : resources) {
+                if (resource.isReadable()) {
+                    digest.update(Objects.requireNonNull(resource.getFilename()).getBytes(StandardCharsets.UTF_8));
+                    try (InputStream in = resource.getInputStream()) {
+                        digest.update(StreamUtils.copyToByteArray(in));
+                    }
+                }
+            }
+            return String.format("%064x", new BigInteger(1, digest.digest()));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            this.log.warn("Could not fingerprint Liquibase changelog {}", changeLog, e);
+            return null;
+        }
+    }
+
+    private boolean isStoredFingerprint(String expected) {
+        try (Connection connection = getDataSource().getConnection(); Statement statement = connection.createStatement()) {
+            String storedFingerprint;
+            int storedChangeSets;
+            try (ResultSet resultSet = statement.executeQuery("select FINGERPRINT, CHANGE_SETS from " + this.getTable(this.getChangeLogTable() + FINGERPRINT_TABLE_SUFFIX))) {
+                if (!resultSet.next()) {
+                    return false;
+                }
+                storedFingerprint = resultSet.getString(1);
+                storedChangeSets = resultSet.getInt(2);
+            }
+            if (!expected.equals(storedFingerprint)) {
+                return false;
+            }
+            try (ResultSet resultSet = statement.executeQuery("select count(*) from " + this.getTable(this.getChangeLogTable()))) {
+                return resultSet.next() && resultSet.getInt(1) == storedChangeSets;
+            }
+        } catch (SQLException e) {
+            this.log.debug("Could not read Liquibase changelog fingerprint: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void storeFingerprint(String fingerprint) {
+        String fingerprintTable = this.getTable(this.getChangeLogTable() + FINGERPRINT_TABLE_SUFFIX);
+        try (Connection connection = getDataSource().getConnection(); Statement statement = connection.createStatement()) {
+            try {
+                statement.execute("create table " + fingerprintTable + " (FINGERPRINT varchar(64) not null, CHANGE_SETS integer not null)");
+            } catch (SQLException e) {
+                this.log.trace("Liquibase changelog fingerprint table exists: {}", e.getMessage());
+            }
+            int changeSets;
+            try (ResultSet resultSet = statement.executeQuery("select count(*) from " + this.getTable(this.getChangeLogTable()))) {
+                changeSets = resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement("insert into " + fingerprintTable + " (FINGERPRINT, CHANGE_SETS) values (?, ?)")) {
+                statement.executeUpdate("delete from " + fingerprintTable);
+                insert.setString(1, fingerprint);
+                insert.setInt(2, changeSets);
+                insert.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            this.log.warn("Could not store Liquibase changelog fingerprint: {}", e.getMessage());
+        }
+    }
+
+    private String getChangeLogTable() {
+        return getDatabaseChangeLogTable() != null ? getDatabaseChangeLogTable() : "DATABASECHANGELOG";
+    }
+
+    private String getTable(String table) {
+        String schema = getLiquibaseSchema() != null ? getLiquibaseSchema() : getDefaultSchema();
+        return schema != null ? schema + "." + table : table;
+    }
+}
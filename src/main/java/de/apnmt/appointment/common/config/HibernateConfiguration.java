@@ -0,0 +1,24 @@
+package de.apnmt.appointment.common.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate settings batching the writes of entities, including their audit columns and versions.
+ * Values configured under {@code spring.jpa.properties} take precedence.
+ */
+@Configuration
+public class HibernateConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer batchingHibernatePropertiesCustomizer(@Value("${application.jpa.batch-size:25}") int batchSize) {
+        return hibernateProperties -> {
+            hibernateProperties.putIfAbsent("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+            hibernateProperties.putIfAbsent("hibernate.jdbc.batch_versioned_data", "true");
+            hibernateProperties.putIfAbsent("hibernate.order_inserts", "true");
+            hibernateProperties.putIfAbsent("hibernate.order_updates", "true");
+        };
+    }
+}
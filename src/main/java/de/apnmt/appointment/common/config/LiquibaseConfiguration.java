@@ -1,5 +1,6 @@
 package de.apnmt.appointment.common.config;
 
+import de.apnmt.appointment.common.sharding.ShardRoutingDataSource;
 import liquibase.integration.spring.SpringLiquibase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,17 +9,23 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.autoconfigure.liquibase.LiquibaseDataSource;
 import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
 import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.config.liquibase.SpringLiquibaseUtil;
 
 import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
 
 @Configuration
+@EnableConfigurationProperties(LiquibaseMigrationProperties.class)
 public class LiquibaseConfiguration {
 
     private final Logger log = LoggerFactory.getLogger(LiquibaseConfiguration.class);
@@ -35,18 +42,77 @@ public class LiquibaseConfiguration {
             @LiquibaseDataSource ObjectProvider<DataSource> liquibaseDataSource,
             LiquibaseProperties liquibaseProperties,
             ObjectProvider<DataSource> dataSource,
-            DataSourceProperties dataSourceProperties
+            DataSourceProperties dataSourceProperties,
+            ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource,
+            LiquibaseMigrationProperties migrationProperties
     ) {
-        // If you don't want Liquibase to start asynchronously, substitute by this:
-        // SpringLiquibase liquibase = SpringLiquibaseUtil.createSpringLiquibase(liquibaseDataSource.getIfAvailable(), liquibaseProperties, dataSource.getIfUnique(), dataSourceProperties);
-        SpringLiquibase liquibase = SpringLiquibaseUtil.createAsyncSpringLiquibase(
-                this.env,
-                executor,
-                liquibaseDataSource.getIfAvailable(),
-                liquibaseProperties,
-                dataSource.getIfUnique(),
-                dataSourceProperties
-        );
+        SpringLiquibase liquibase;
+        boolean fastStart = this.env.getProperty(FastStartEnvironmentPostProcessor.ENABLED, Boolean.class, false);
+        ShardRoutingDataSource shards = shardRoutingDataSource.getIfAvailable();
+        if (shards != null || !migrationProperties.getDatasources().isEmpty()) {
+            // Several data sources hold the full schema, so all of them are migrated in parallel before startup continues
+            Map<String, DataSource> dataSources = new LinkedHashMap<>();
+            DataSource primary;
+            if (shards != null) {
+                dataSources.putAll(shards.getShards());
+                primary = shards;
+            } else {
+                primary = liquibaseDataSource.getIfAvailable(dataSource::getIfUnique);
+                dataSources.put("default", primary);
+            }
+            migrationProperties.getDatasources().forEach((name, properties) -> dataSources.put(name, this.createDataSource(properties)));
+            MultiDataSourceSpringLiquibase multiDataSourceLiquibase = new MultiDataSourceSpringLiquibase(
+                    dataSources,
+                    migrationProperties.getParallelism(),
+                    it -> this.configure(it, liquibaseProperties)
+            );
+            if (fastStart) {
+                multiDataSourceLiquibase.setMigrationFactory(FastStartSpringLiquibase::new);
+            }
+            liquibase = multiDataSourceLiquibase;
+            liquibase.setDataSource(primary);
+        } else if (fastStart) {
+            // Skipping an unchanged changelog is cheap, so the check runs synchronously
+            liquibase = new FastStartSpringLiquibase();
+            liquibase.setDataSource(liquibaseDataSource.getIfAvailable(dataSource::getIfUnique));
+        } else {
+            // If you don't want Liquibase to start asynchronously, substitute by this:
+            // SpringLiquibase liquibase = SpringLiquibaseUtil.createSpringLiquibase(liquibaseDataSource.getIfAvailable(), liquibaseProperties, dataSource.getIfUnique(), dataSourceProperties);
+            liquibase = SpringLiquibaseUtil.createAsyncSpringLiquibase(
+                    this.env,
+                    executor,
+                    liquibaseDataSource.getIfAvailable(),
+                    liquibaseProperties,
+                    dataSource.getIfUnique(),
+                    dataSourceProperties
+            );
+        }
+        this.configure(liquibase, liquibaseProperties);
+        if (this.env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_NO_LIQUIBASE))) {
+            liquibase.setShouldRun(false);
+        } else {
+            liquibase.setShouldRun(liquibaseProperties.isEnabled());
+            this.log.debug("Configuring Liquibase");
+        }
+        return liquibase;
+    }
+
+    /**
+     * Create an unpooled data source only used for the migration.
+     */
+    private DataSource createDataSource(LiquibaseMigrationProperties.DataSource properties) {
+        DataSourceBuilder<?> builder = DataSourceBuilder.create()
+                .type(SimpleDriverDataSource.class)
+                .url(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword());
+        if (properties.getDriverClassName() != null) {
+            builder.driverClassName(properties.getDriverClassName());
+        }
+        return builder.build();
+    }
+
+    private void configure(SpringLiquibase liquibase, LiquibaseProperties liquibaseProperties) {
         liquibase.setChangeLog("classpath:config/liquibase/master.xml");
         liquibase.setContexts(liquibaseProperties.getContexts());
         liquibase.setDefaultSchema(liquibaseProperties.getDefaultSchema());
@@ -59,12 +125,5 @@ public class LiquibaseConfiguration {
         liquibase.setChangeLogParameters(liquibaseProperties.getParameters());
         liquibase.setRollbackFile(liquibaseProperties.getRollbackFile());
         liquibase.setTestRollbackOnUpdate(liquibaseProperties.isTestRollbackOnUpdate());
-        if (this.env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_NO_LIQUIBASE))) {
-            liquibase.setShouldRun(false);
-        } else {
-            liquibase.setShouldRun(liquibaseProperties.isEnabled());
-            this.log.debug("Configuring Liquibase");
-        }
-        return liquibase;
     }
 }
@@ -0,0 +1,80 @@
+package de.apnmt.appointment.common.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Properties of the Liquibase migrations run at startup.
+ * <p>
+ * Properties are configured in the {@code application.yml} file under {@code application.liquibase}.
+ */
+@ConfigurationProperties(prefix = "application.liquibase", ignoreUnknownFields = false)
+public class LiquibaseMigrationProperties {
+
+    private int parallelism = 4;
+
+    private final Map<String, DataSource> datasources = new LinkedHashMap<>();
+
+    /**
+     * @return the maximum number of data sources migrated at the same time.
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return additional data sources migrated together with the application data source, by name.
+     */
+    public Map<String, DataSource> getDatasources() {
+        return this.datasources;
+    }
+
+    public static class DataSource {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private String driverClassName;
+
+        public String getUrl() {
+            return this.url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return this.username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return this.password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public String getDriverClassName() {
+            return this.driverClassName;
+        }
+
+        public void setDriverClassName(String driverClassName) {
+            this.driverClassName = driverClassName;
+        }
+    }
+}
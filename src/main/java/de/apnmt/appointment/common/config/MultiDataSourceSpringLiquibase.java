@@ -0,0 +1,116 @@
+package de.apnmt.appointment.common.config;
+
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link SpringLiquibase} applying the changelog to several data sources in parallel on a bounded pool.
+ * <p>
+ * The migrations run while the bean is initialized, so the entity manager factory, which depends on this bean,
+ * and with it the application only become ready once every data source has been migrated.
+ */
+public class MultiDataSourceSpringLiquibase extends SpringLiquibase {
+
+    private final Logger log = LoggerFactory.getLogger(MultiDataSourceSpringLiquibase.class);
+
+    private final Map<String, DataSource> dataSources;
+
+    private final int parallelism;
+
+    private final Consumer<SpringLiquibase> configurer;
+
+    private Supplier<SpringLiquibase> migrationFactory = SpringLiquibase::new;
+
+    private boolean migrate = true;
+
+    /**
+     * @param dataSources the data sources to migrate by name.
+     * @param parallelism the maximum number of data sources migrated at the same time.
+     * @param configurer  applies the Liquibase settings to the migration of each data source.
+     */
+    public MultiDataSourceSpringLiquibase(Map<String, DataSource> dataSources, int parallelism, Consumer<SpringLiquibase> configurer) {
+        this.dataSources = dataSources;
+        this.parallelism = Math.max(1, Math.min(parallelism, dataSources.size()));
+        this.configurer = configurer;
+    }
+
+    /**
+     * @param migrationFactory creates the {@link SpringLiquibase} migrating a single data source.
+     */
+    public void setMigrationFactory(Supplier<SpringLiquibase> migrationFactory) {
+        this.migrationFactory = migrationFactory;
+    }
+
+    @Override
+    public void setShouldRun(boolean shouldRun) {
+        super.setShouldRun(shouldRun);
+        this.migrate = shouldRun;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        if (!this.migrate || this.dataSources.isEmpty()) {
+            return;
+        }
+        this.log.info("Migrating {} data sources with {} threads", this.dataSources.size(), this.parallelism);
+        long start = System.currentTimeMillis();
+        AtomicInteger finished = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(this.parallelism, new CustomizableThreadFactory("liquibase-"));
+        try {
+            List<CompletableFuture<Void>> migrations = new ArrayList<>();
+            this.dataSources.forEach((name, dataSource) -> migrations.add(CompletableFuture.runAsync(() -> {
+                long duration = this.migrate(name, dataSource);
+                this.log.info("Migrated data source {} in {} ms ({}/{})", name, duration, finished.incrementAndGet(), this.dataSources.size());
+            }, executor)));
+            CompletableFuture.allOf(migrations.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof LiquibaseMigrationException) {
+                throw (LiquibaseException) e.getCause().getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+        this.log.info("Migrated {} data sources in {} ms", this.dataSources.size(), System.currentTimeMillis() - start);
+    }
+
+    private long migrate(String name, DataSource dataSource) {
+        this.log.debug("Migrating data source {}", name);
+        long start = System.currentTimeMillis();
+        SpringLiquibase liquibase = this.migrationFactory.get();
+        this.configurer.accept(liquibase);
+        liquibase.setResourceLoader(getResourceLoader());
+        liquibase.setDataSource(dataSource);
+        try {
+            liquibase.afterPropertiesSet();
+        } catch (LiquibaseException e) {
+            this.log.error("Migration of data source {} failed after {} ms", name, System.currentTimeMillis() - start);
+            throw new LiquibaseMigrationException(e);
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    private static class LiquibaseMigrationException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        LiquibaseMigrationException(LiquibaseException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package de.apnmt.appointment.common.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import de.apnmt.appointment.common.sharding.ModuloShardResolver;
+import de.apnmt.appointment.common.sharding.ShardConnectionProvider;
+import de.apnmt.appointment.common.sharding.ShardContextFilter;
+import de.apnmt.appointment.common.sharding.ShardResolver;
+import de.apnmt.appointment.common.sharding.ShardRoutingAspect;
+import de.apnmt.appointment.common.sharding.ShardRoutingDataSource;
+import de.apnmt.appointment.common.sharding.ShardTenantIdentifierResolver;
+import de.apnmt.appointment.common.sharding.ShardingProperties;
+import org.hibernate.MultiTenancyStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration of the per-organization database shards, enabled by {@code application.sharding.enabled}.
+ * <p>
+ * All repositories use a {@link ShardRoutingDataSource}, which picks the shard of the organization a service method works on.
+ * Hibernate treats every shard as a tenant database, so the ids generated from the {@code sequence_generator} of a shard
+ * are unique within that shard. Ids of different shards may be equal, so entities must be addressed together with their
+ * organization, either through a {@code @ShardKey} parameter or the {@code X-Organization-Id} header.
+ * The open session in view is disabled by the {@link ShardingEnvironmentPostProcessor}, as the shard of a session is fixed when it is opened.
+ * Every shard has its own Hikari pool configured by {@code spring.datasource.hikari}, whose settings can be overridden
+ * per shard under {@code application.sharding.shards.<name>.hikari}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(ShardingConfiguration.class);
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ShardResolver shardResolver(ShardingProperties shardingProperties) {
+        return new ModuloShardResolver(shardingProperties.getShards().keySet(), shardingProperties.getOrganizations());
+    }
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(ShardingProperties shardingProperties, ShardResolver shardResolver, Environment environment) {
+        Binder binder = Binder.get(environment);
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        shardingProperties.getShards().forEach((name, shard) -> {
+            HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class).build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+            // the connection settings of the shard win over a jdbc-url or username of the shared pool settings
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            if (shard.getDriverClassName() != null) {
+                dataSource.setDriverClassName(shard.getDriverClassName());
+            }
+            dataSource.setPoolName((dataSource.getPoolName() != null ? dataSource.getPoolName() : "HikariPool") + "-" + name);
+            binder.bind("application.sharding.shards." + name + ".hikari", Bindable.ofInstance(dataSource));
+            shards.put(name, dataSource);
+        });
+        this.log.debug("Configuring {} database shards, default shard {}", shards.size(), shardingProperties.getDefaultShard());
+        return new ShardRoutingDataSource(shards, shardingProperties.getDefaultShard(), shardResolver);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardingHibernatePropertiesCustomizer(ShardRoutingDataSource dataSource) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.MULTI_TENANT, MultiTenancyStrategy.DATABASE);
+            hibernateProperties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, new ShardConnectionProvider(dataSource));
+            hibernateProperties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new ShardTenantIdentifierResolver(dataSource));
+        };
+    }
+
+    @Bean
+    public ShardRoutingAspect shardRoutingAspect(ShardingProperties shardingProperties) {
+        return new ShardRoutingAspect(shardingProperties.getShards().keySet());
+    }
+
+    @Bean
+    public ShardContextFilter shardContextFilter() {
+        return new ShardContextFilter();
+    }
+}
@@ -0,0 +1,29 @@
+package de.apnmt.appointment.common.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Collections;
+
+/**
+ * Disables the open session in view if the sharding is enabled by {@code application.sharding.enabled}.
+ * <p>
+ * The shard of a Hibernate session is resolved when it is opened, which the open session in view does before
+ * the service method setting the organization is invoked. The setting overrides explicitly configured values.
+ */
+public class ShardingEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    public static final String ENABLED = "application.sharding.enabled";
+
+    private static final String OPEN_IN_VIEW = "spring.jpa.open-in-view";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.getProperty(ENABLED, Boolean.class, false)) {
+            return;
+        }
+        environment.getPropertySources().addFirst(new MapPropertySource("shardingOverrides", Collections.singletonMap(OPEN_IN_VIEW, false)));
+    }
+}
@@ -10,12 +10,17 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import java.io.Serializable;
 import java.time.Instant;
 
 /**
  * Base abstract class for entities which will hold definitions for created, last modified, created by,
  * last modified by attributes.
+ * <p>
+ * The dates are taken when the entity is persisted or updated, so hydrating an entity does not read the clock,
+ * and they are set even if JPA auditing is not enabled.
  */
 @MappedSuperclass
 @EntityListeners(AuditingEntityListener.class)
@@ -31,7 +36,7 @@ public abstract class AbstractAuditingEntity implements Serializable {
     @CreatedDate
     @Column(name = "created_date", updatable = false)
     @JsonIgnore
-    private Instant createdDate = Instant.now();
+    private Instant createdDate;
 
     @LastModifiedBy
     @Column(name = "last_modified_by", length = 50)
@@ -41,7 +46,7 @@ public abstract class AbstractAuditingEntity implements Serializable {
     @LastModifiedDate
     @Column(name = "last_modified_date")
     @JsonIgnore
-    private Instant lastModifiedDate = Instant.now();
+    private Instant lastModifiedDate;
 
     public String getCreatedBy() {
         return createdBy;
@@ -74,4 +79,20 @@ public abstract class AbstractAuditingEntity implements Serializable {
     public void setLastModifiedDate(Instant lastModifiedDate) {
         this.lastModifiedDate = lastModifiedDate;
     }
+
+    @PrePersist
+    protected void onPersist() {
+        Instant now = Instant.now();
+        if (this.createdDate == null) {
+            this.createdDate = now;
+        }
+        if (this.lastModifiedDate == null) {
+            this.lastModifiedDate = now;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.lastModifiedDate = Instant.now();
+    }
 }
@@ -4,15 +4,16 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
-import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 /**
  * A Appointment.
  */
 @Entity
 @Table(name = "appointment")
-public class Appointment implements Serializable {
+@EntityListeners(ChangeFeedListener.class)
+public class Appointment extends AbstractAuditingEntity {
 
     private static final long serialVersionUID = 1L;
 
@@ -29,6 +30,18 @@ public class Appointment implements Serializable {
     @Column(name = "end_at", nullable = false)
     private LocalDateTime endAt;
 
+    /**
+     * {@link #startAt} in minutes since the epoch, rounded down, for overlap checks on primitives.
+     */
+    @Column(name = "start_minute", nullable = false)
+    private long startMinute;
+
+    /**
+     * {@link #endAt} in minutes since the epoch, rounded up, so that rounding never hides an overlap.
+     */
+    @Column(name = "end_minute", nullable = false)
+    private long endMinute;
+
     @NotNull
     @Column(name = "organization_id", nullable = false)
     private Long organizationId;
@@ -45,6 +58,10 @@ public class Appointment implements Serializable {
     @JsonIgnoreProperties(value = {"appointments"}, allowSetters = true)
     private Service service;
 
+    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(unique = true)
+    private RecurrenceRule recurrenceRule;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
     public Long getId() {
         return this.id;
@@ -64,12 +81,13 @@ public class Appointment implements Serializable {
     }
 
     public Appointment startAt(LocalDateTime startAt) {
-        this.startAt = startAt;
+        this.setStartAt(startAt);
         return this;
     }
 
     public void setStartAt(LocalDateTime startAt) {
         this.startAt = startAt;
+        this.startMinute = startAt != null ? Math.floorDiv(startAt.toEpochSecond(ZoneOffset.UTC), 60) : 0;
     }
 
     public LocalDateTime getEndAt() {
@@ -77,12 +95,21 @@ public class Appointment implements Serializable {
     }
 
     public Appointment endAt(LocalDateTime endAt) {
-        this.endAt = endAt;
+        this.setEndAt(endAt);
         return this;
     }
 
     public void setEndAt(LocalDateTime endAt) {
         this.endAt = endAt;
+        this.endMinute = endAt != null ? -Math.floorDiv(-endAt.toEpochSecond(ZoneOffset.UTC), 60) : 0;
+    }
+
+    public long getStartMinute() {
+        return this.startMinute;
+    }
+
+    public long getEndMinute() {
+        return this.endMinute;
     }
 
     public Long getOrganizationId() {
@@ -137,6 +164,19 @@ public class Appointment implements Serializable {
         this.service = service;
     }
 
+    public RecurrenceRule getRecurrenceRule() {
+        return this.recurrenceRule;
+    }
+
+    public Appointment recurrenceRule(RecurrenceRule recurrenceRule) {
+        this.setRecurrenceRule(recurrenceRule);
+        return this;
+    }
+
+    public void setRecurrenceRule(RecurrenceRule recurrenceRule) {
+        this.recurrenceRule = recurrenceRule;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
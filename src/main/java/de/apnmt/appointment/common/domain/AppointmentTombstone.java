@@ -0,0 +1,115 @@
+package de.apnmt.appointment.common.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * The record of a deleted {@link Appointment}, reported by the appointment change feed.
+ */
+@Entity
+@Table(name = "appointment_tombstone")
+@EntityListeners(ChangeFeedListener.class)
+public class AppointmentTombstone implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    private Long id;
+
+    @NotNull
+    @Column(name = "appointment_id", nullable = false)
+    private Long appointmentId;
+
+    @NotNull
+    @Column(name = "organization_id", nullable = false)
+    private Long organizationId;
+
+    @NotNull
+    @Column(name = "deleted_date", nullable = false)
+    private Instant deletedDate;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getAppointmentId() {
+        return this.appointmentId;
+    }
+
+    public AppointmentTombstone appointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+        return this;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public Long getOrganizationId() {
+        return this.organizationId;
+    }
+
+    public AppointmentTombstone organizationId(Long organizationId) {
+        this.organizationId = organizationId;
+        return this;
+    }
+
+    public void setOrganizationId(Long organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public Instant getDeletedDate() {
+        return this.deletedDate;
+    }
+
+    public AppointmentTombstone deletedDate(Instant deletedDate) {
+        this.deletedDate = deletedDate;
+        return this;
+    }
+
+    public void setDeletedDate(Instant deletedDate) {
+        this.deletedDate = deletedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AppointmentTombstone)) {
+            return false;
+        }
+        return this.id != null && this.id.equals(((AppointmentTombstone) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "AppointmentTombstone{" +
+                "id=" + getId() +
+                ", appointmentId=" + getAppointmentId() +
+                ", organizationId=" + getOrganizationId() +
+                ", deletedDate='" + getDeletedDate() + "'" +
+                "}";
+    }
+}
@@ -0,0 +1,71 @@
+package de.apnmt.appointment.common.domain;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Optionally limits the time between stamping a change of the appointment change feed and committing it.
+ * <p>
+ * The modification dates of appointments and tombstones are stamped when they are persisted or flushed, not when their
+ * transaction commits, and the change feed only hands out changes older than {@code application.change-feed.lag}.
+ * A transaction committing later than the lag after its first stamp could be skipped by consumers whose watermark
+ * already moved past the stamp. When {@code application.change-feed.max-write-duration} is set, such transactions are
+ * rolled back instead; the limit should leave part of the lag for the commit itself and for clock differences between
+ * instances, e.g. half of it. The check is disabled by default, as it also fails long transactions like imports.
+ */
+public class ChangeFeedListener {
+
+    private final Duration maxWriteDuration;
+
+    public ChangeFeedListener() {
+        this(Duration.ZERO);
+    }
+
+    @Autowired
+    public ChangeFeedListener(@Value("${application.change-feed.max-write-duration:0}") Duration maxWriteDuration) {
+        this.maxWriteDuration = maxWriteDuration;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void onStamp(Object entity) {
+        if (this.maxWriteDuration.isZero() || this.maxWriteDuration.isNegative() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof WriteDurationCheck) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new WriteDurationCheck(Instant.now(), this.maxWriteDuration));
+    }
+
+    private static final class WriteDurationCheck implements TransactionSynchronization {
+
+        private final Instant stampedAt;
+
+        private final Duration maxWriteDuration;
+
+        private WriteDurationCheck(Instant stampedAt, Duration maxWriteDuration) {
+            this.stampedAt = stampedAt;
+            this.maxWriteDuration = maxWriteDuration;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            Duration elapsed = Duration.between(this.stampedAt, Instant.now());
+            if (elapsed.compareTo(this.maxWriteDuration) > 0) {
+                throw new TransactionTimedOutException("Appointment changes were stamped " + elapsed.toMillis() + " ms before the commit, more than the "
+                        + this.maxWriteDuration.toMillis() + " ms allowed for the change feed");
+            }
+        }
+    }
+}
@@ -4,9 +4,9 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
-import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 /**
@@ -14,7 +14,7 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "customer")
-public class Customer implements Serializable {
+public class Customer extends AbstractAuditingEntity {
 
     private static final long serialVersionUID = 1L;
 
@@ -35,6 +35,9 @@ public class Customer implements Serializable {
     @Column(name = "mail", nullable = false)
     private String mail;
 
+    @Column(name = "normalized_mail", nullable = false)
+    private String normalizedMail;
+
     @NotNull
     @Column(name = "phone", nullable = false)
     private String phone;
@@ -47,6 +50,10 @@ public class Customer implements Serializable {
     @Column(name = "organization_id", nullable = false)
     private Long organizationId;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @OneToMany(mappedBy = "customer")
     @JsonIgnoreProperties(value = { "customer", "service" }, allowSetters = true)
     private Set<Appointment> appointments = new HashSet<>();
@@ -104,6 +111,26 @@ public class Customer implements Serializable {
         this.mail = mail;
     }
 
+    public String getNormalizedMail() {
+        return this.normalizedMail;
+    }
+
+    /**
+     * Normalize a mail address the way it is stored in {@code normalized_mail}, which identifies a customer within an organization.
+     *
+     * @param mail the mail address.
+     * @return the normalized mail address.
+     */
+    public static String normalizeMail(String mail) {
+        return mail == null ? null : mail.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateNormalizedMail() {
+        this.normalizedMail = normalizeMail(this.mail);
+    }
+
     public String getPhone() {
         return this.phone;
     }
@@ -143,6 +170,14 @@ public class Customer implements Serializable {
         this.organizationId = organizationId;
     }
 
+    public long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Set<Appointment> getAppointments() {
         return this.appointments;
     }
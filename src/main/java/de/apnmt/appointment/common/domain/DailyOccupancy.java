@@ -0,0 +1,149 @@
+package de.apnmt.appointment.common.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+
+/**
+ * The number and booked minutes of the single {@link Appointment}s of an employee starting on a day,
+ * maintained together with the appointments.
+ */
+@Entity
+@Table(name = "daily_occupancy")
+public class DailyOccupancy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    private Long id;
+
+    @NotNull
+    @Column(name = "organization_id", nullable = false)
+    private Long organizationId;
+
+    @NotNull
+    @Column(name = "employee_id", nullable = false)
+    private Long employeeId;
+
+    /**
+     * The day in days since the epoch, matching {@link Appointment#getStartMinute()} divided by the minutes of a day.
+     */
+    @Column(name = "epoch_day", nullable = false)
+    private long epochDay;
+
+    @Column(name = "appointments", nullable = false)
+    private long appointments;
+
+    @Column(name = "booked_minutes", nullable = false)
+    private long bookedMinutes;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getOrganizationId() {
+        return this.organizationId;
+    }
+
+    public DailyOccupancy organizationId(Long organizationId) {
+        this.organizationId = organizationId;
+        return this;
+    }
+
+    public void setOrganizationId(Long organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public Long getEmployeeId() {
+        return this.employeeId;
+    }
+
+    public DailyOccupancy employeeId(Long employeeId) {
+        this.employeeId = employeeId;
+        return this;
+    }
+
+    public void setEmployeeId(Long employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public long getEpochDay() {
+        return this.epochDay;
+    }
+
+    public DailyOccupancy epochDay(long epochDay) {
+        this.epochDay = epochDay;
+        return this;
+    }
+
+    public void setEpochDay(long epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    public long getAppointments() {
+        return this.appointments;
+    }
+
+    public DailyOccupancy appointments(long appointments) {
+        this.appointments = appointments;
+        return this;
+    }
+
+    public void setAppointments(long appointments) {
+        this.appointments = appointments;
+    }
+
+    public long getBookedMinutes() {
+        return this.bookedMinutes;
+    }
+
+    public DailyOccupancy bookedMinutes(long bookedMinutes) {
+        this.bookedMinutes = bookedMinutes;
+        return this;
+    }
+
+    public void setBookedMinutes(long bookedMinutes) {
+        this.bookedMinutes = bookedMinutes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DailyOccupancy)) {
+            return false;
+        }
+        return this.id != null && this.id.equals(((DailyOccupancy) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "DailyOccupancy{" +
+                "id=" + getId() +
+                ", organizationId=" + getOrganizationId() +
+                ", employeeId=" + getEmployeeId() +
+                ", epochDay=" + getEpochDay() +
+                ", appointments=" + getAppointments() +
+                ", bookedMinutes=" + getBookedMinutes() +
+                "}";
+    }
+}
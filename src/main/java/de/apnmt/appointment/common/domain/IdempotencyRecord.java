@@ -0,0 +1,229 @@
+package de.apnmt.appointment.common.domain;
+
+import org.hibernate.annotations.Type;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Lob;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * The result of a request carrying an {@code Idempotency-Key}, scoped by organization.
+ * <p>
+ * The record is inserted before the request is processed, so its primary key serves as lock across nodes; the
+ * {@code response} is the snapshot of the created appointment and stays empty while the request is in progress.
+ * New records are always inserted, never merged, so a concurrent insert of the same key fails.
+ */
+@Entity
+@Table(name = "idempotency_record")
+@IdClass(IdempotencyRecord.RecordId.class)
+public class IdempotencyRecord implements Serializable, Persistable<IdempotencyRecord.RecordId> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "organization_id", nullable = false)
+    private Long organizationId;
+
+    @Id
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @NotNull
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+
+    @Column(name = "appointment_id")
+    private Long appointmentId;
+
+    @Lob
+    @Type(type = "org.hibernate.type.TextType")
+    @Column(name = "response")
+    private String response;
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Transient
+    private boolean isPersisted;
+
+    @Override
+    public RecordId getId() {
+        return new RecordId(this.organizationId, this.idempotencyKey);
+    }
+
+    @Override
+    public boolean isNew() {
+        return !this.isPersisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    public void updateEntityState() {
+        this.isPersisted = true;
+    }
+
+    public Long getOrganizationId() {
+        return this.organizationId;
+    }
+
+    public IdempotencyRecord organizationId(Long organizationId) {
+        this.organizationId = organizationId;
+        return this;
+    }
+
+    public void setOrganizationId(Long organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public String getIdempotencyKey() {
+        return this.idempotencyKey;
+    }
+
+    public IdempotencyRecord idempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+        return this;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getRequestHash() {
+        return this.requestHash;
+    }
+
+    public IdempotencyRecord requestHash(String requestHash) {
+        this.requestHash = requestHash;
+        return this;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Long getAppointmentId() {
+        return this.appointmentId;
+    }
+
+    public IdempotencyRecord appointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+        return this;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public String getResponse() {
+        return this.response;
+    }
+
+    public IdempotencyRecord response(String response) {
+        this.response = response;
+        return this;
+    }
+
+    public void setResponse(String response) {
+        this.response = response;
+    }
+
+    public Instant getCreatedAt() {
+        return this.createdAt;
+    }
+
+    public IdempotencyRecord createdAt(Instant createdAt) {
+        this.createdAt = createdAt;
+        return this;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IdempotencyRecord)) {
+            return false;
+        }
+        IdempotencyRecord other = (IdempotencyRecord) o;
+        return this.organizationId != null && this.idempotencyKey != null
+                && this.organizationId.equals(other.organizationId) && this.idempotencyKey.equals(other.idempotencyKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "IdempotencyRecord{" +
+                "organizationId=" + getOrganizationId() +
+                ", idempotencyKey='" + getIdempotencyKey() + "'" +
+                ", requestHash='" + getRequestHash() + "'" +
+                ", appointmentId=" + getAppointmentId() +
+                ", createdAt='" + getCreatedAt() + "'" +
+                "}";
+    }
+
+    /**
+     * The primary key of an {@link IdempotencyRecord}.
+     */
+    public static class RecordId implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long organizationId;
+
+        private String idempotencyKey;
+
+        public RecordId() {
+        }
+
+        public RecordId(Long organizationId, String idempotencyKey) {
+            this.organizationId = organizationId;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        public Long getOrganizationId() {
+            return this.organizationId;
+        }
+
+        public String getIdempotencyKey() {
+            return this.idempotencyKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RecordId)) {
+                return false;
+            }
+            RecordId other = (RecordId) o;
+            return Objects.equals(this.organizationId, other.organizationId) && Objects.equals(this.idempotencyKey, other.idempotencyKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.organizationId, this.idempotencyKey);
+        }
+    }
+}
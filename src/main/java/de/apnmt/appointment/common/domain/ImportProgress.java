@@ -0,0 +1,246 @@
+package de.apnmt.appointment.common.domain;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * The progress of a CSV import, scoped by organization.
+ * <p>
+ * The progress is written in the transaction of each imported batch, so it always matches the committed rows and an
+ * aborted import is resumed after the last committed batch.
+ */
+@Entity
+@Table(name = "import_progress")
+@IdClass(ImportProgress.ProgressId.class)
+public class ImportProgress implements Serializable, Persistable<ImportProgress.ProgressId> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "organization_id", nullable = false)
+    private Long organizationId;
+
+    @Id
+    @Column(name = "import_id", length = 64, nullable = false)
+    private String importId;
+
+    @NotNull
+    @Column(name = "entity_name", length = 32, nullable = false)
+    private String entityName;
+
+    @Column(name = "processed", nullable = false)
+    private long processed;
+
+    @Column(name = "imported", nullable = false)
+    private long imported;
+
+    @Column(name = "rejected", nullable = false)
+    private long rejected;
+
+    @Column(name = "skipped", nullable = false)
+    private long skipped;
+
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @NotNull
+    @Column(name = "last_modified_date", nullable = false)
+    private Instant lastModifiedDate;
+
+    @Transient
+    private boolean isPersisted;
+
+    @Override
+    public ProgressId getId() {
+        return new ProgressId(this.organizationId, this.importId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return !this.isPersisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    public void updateEntityState() {
+        this.isPersisted = true;
+    }
+
+    public Long getOrganizationId() {
+        return this.organizationId;
+    }
+
+    public ImportProgress organizationId(Long organizationId) {
+        this.organizationId = organizationId;
+        return this;
+    }
+
+    public void setOrganizationId(Long organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public String getImportId() {
+        return this.importId;
+    }
+
+    public ImportProgress importId(String importId) {
+        this.importId = importId;
+        return this;
+    }
+
+    public void setImportId(String importId) {
+        this.importId = importId;
+    }
+
+    public String getEntityName() {
+        return this.entityName;
+    }
+
+    public ImportProgress entityName(String entityName) {
+        this.entityName = entityName;
+        return this;
+    }
+
+    public void setEntityName(String entityName) {
+        this.entityName = entityName;
+    }
+
+    public long getProcessed() {
+        return this.processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getImported() {
+        return this.imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getRejected() {
+        return this.rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getSkipped() {
+        return this.skipped;
+    }
+
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    public boolean isCompleted() {
+        return this.completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public Instant getLastModifiedDate() {
+        return this.lastModifiedDate;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImportProgress)) {
+            return false;
+        }
+        ImportProgress other = (ImportProgress) o;
+        return this.organizationId != null && this.importId != null
+                && this.organizationId.equals(other.organizationId) && this.importId.equals(other.importId);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ImportProgress{" +
+                "organizationId=" + getOrganizationId() +
+                ", importId='" + getImportId() + "'" +
+                ", entityName='" + getEntityName() + "'" +
+                ", processed=" + getProcessed() +
+                ", imported=" + getImported() +
+                ", rejected=" + getRejected() +
+                ", skipped=" + getSkipped() +
+                ", completed=" + isCompleted() +
+                ", lastModifiedDate='" + getLastModifiedDate() + "'" +
+                "}";
+    }
+
+    /**
+     * The primary key of an {@link ImportProgress}.
+     */
+    public static class ProgressId implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long organizationId;
+
+        private String importId;
+
+        public ProgressId() {
+        }
+
+        public ProgressId(Long organizationId, String importId) {
+            this.organizationId = organizationId;
+            this.importId = importId;
+        }
+
+        public Long getOrganizationId() {
+            return this.organizationId;
+        }
+
+        public String getImportId() {
+            return this.importId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ProgressId)) {
+                return false;
+            }
+            ProgressId other = (ProgressId) o;
+            return Objects.equals(this.organizationId, other.organizationId) && Objects.equals(this.importId, other.importId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.organizationId, this.importId);
+        }
+    }
+}
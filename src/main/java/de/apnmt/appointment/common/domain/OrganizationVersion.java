@@ -0,0 +1,94 @@
+package de.apnmt.appointment.common.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * Counters of the changes to the services, customers and appointments of an organization, the source of the ETags of their lists.
+ */
+@Entity
+@Table(name = "organization_version")
+public class OrganizationVersion implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "organization_id")
+    private Long organizationId;
+
+    @Column(name = "service_version", nullable = false)
+    private long serviceVersion;
+
+    @Column(name = "customer_version", nullable = false)
+    private long customerVersion;
+
+    @Column(name = "appointment_version", nullable = false)
+    private long appointmentVersion;
+
+    public Long getOrganizationId() {
+        return this.organizationId;
+    }
+
+    public OrganizationVersion organizationId(Long organizationId) {
+        this.organizationId = organizationId;
+        return this;
+    }
+
+    public void setOrganizationId(Long organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public long getServiceVersion() {
+        return this.serviceVersion;
+    }
+
+    public void setServiceVersion(long serviceVersion) {
+        this.serviceVersion = serviceVersion;
+    }
+
+    public long getCustomerVersion() {
+        return this.customerVersion;
+    }
+
+    public void setCustomerVersion(long customerVersion) {
+        this.customerVersion = customerVersion;
+    }
+
+    public long getAppointmentVersion() {
+        return this.appointmentVersion;
+    }
+
+    public void setAppointmentVersion(long appointmentVersion) {
+        this.appointmentVersion = appointmentVersion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OrganizationVersion)) {
+            return false;
+        }
+        return this.organizationId != null && this.organizationId.equals(((OrganizationVersion) o).organizationId);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "OrganizationVersion{" +
+                "organizationId=" + getOrganizationId() +
+                ", serviceVersion=" + getServiceVersion() +
+                ", customerVersion=" + getCustomerVersion() +
+                ", appointmentVersion=" + getAppointmentVersion() +
+                "}";
+    }
+}
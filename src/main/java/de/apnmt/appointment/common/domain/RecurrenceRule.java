@@ -0,0 +1,155 @@
+package de.apnmt.appointment.common.domain;
+
+import de.apnmt.appointment.common.domain.enumeration.RecurrenceFrequency;
+
+import javax.persistence.*;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A RecurrenceRule, turning an {@link Appointment} into the first occurrence of a series.
+ * The occurrences follow every {@code interval} days or weeks until {@code until}, except for the cancelled dates in {@code exceptions}.
+ */
+@Entity
+@Table(name = "recurrence_rule")
+public class RecurrenceRule implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    private Long id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "frequency", nullable = false)
+    private RecurrenceFrequency frequency;
+
+    @NotNull
+    @Min(value = 1)
+    @Column(name = "jhi_interval", nullable = false)
+    private Integer interval;
+
+    @Column(name = "until")
+    private LocalDateTime until;
+
+    @ElementCollection
+    @CollectionTable(name = "recurrence_exception", joinColumns = @JoinColumn(name = "recurrence_rule_id"))
+    @Column(name = "occurrence_date", nullable = false)
+    private Set<LocalDate> exceptions = new HashSet<>();
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public RecurrenceRule id(Long id) {
+        this.id = id;
+        return this;
+    }
+
+    public RecurrenceFrequency getFrequency() {
+        return this.frequency;
+    }
+
+    public RecurrenceRule frequency(RecurrenceFrequency frequency) {
+        this.frequency = frequency;
+        return this;
+    }
+
+    public void setFrequency(RecurrenceFrequency frequency) {
+        this.frequency = frequency;
+    }
+
+    public Integer getInterval() {
+        return this.interval;
+    }
+
+    public RecurrenceRule interval(Integer interval) {
+        this.interval = interval;
+        return this;
+    }
+
+    public void setInterval(Integer interval) {
+        this.interval = interval;
+    }
+
+    public LocalDateTime getUntil() {
+        return this.until;
+    }
+
+    public RecurrenceRule until(LocalDateTime until) {
+        this.until = until;
+        return this;
+    }
+
+    public void setUntil(LocalDateTime until) {
+        this.until = until;
+    }
+
+    public Set<LocalDate> getExceptions() {
+        return this.exceptions;
+    }
+
+    public RecurrenceRule exceptions(Set<LocalDate> exceptions) {
+        this.setExceptions(exceptions);
+        return this;
+    }
+
+    public RecurrenceRule addException(LocalDate occurrenceDate) {
+        this.exceptions.add(occurrenceDate);
+        return this;
+    }
+
+    public void setExceptions(Set<LocalDate> exceptions) {
+        this.exceptions = exceptions;
+    }
+
+    /**
+     * @return the number of days between two occurrences.
+     */
+    public long getStepDays() {
+        return (long) this.frequency.getDays() * this.interval;
+    }
+
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RecurrenceRule)) {
+            return false;
+        }
+        return this.id != null && this.id.equals(((RecurrenceRule) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RecurrenceRule{" +
+                "id=" + getId() +
+                ", frequency='" + getFrequency() + "'" +
+                ", interval=" + getInterval() +
+                ", until='" + getUntil() + "'" +
+                ", exceptions=" + getExceptions() +
+                "}";
+    }
+}
@@ -4,7 +4,6 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
-import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -13,7 +12,7 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "service")
-public class Service implements Serializable {
+public class Service extends AbstractAuditingEntity {
 
     private static final long serialVersionUID = 1L;
 
@@ -42,6 +41,10 @@ public class Service implements Serializable {
     @Column(name = "organization_id", nullable = false)
     private Long organizationId;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @OneToMany(mappedBy = "service")
     @JsonIgnoreProperties(value = { "customer", "service" }, allowSetters = true)
     private Set<Appointment> appointments = new HashSet<>();
@@ -125,6 +128,14 @@ public class Service implements Serializable {
         this.organizationId = organizationId;
     }
 
+    public long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Set<Appointment> getAppointments() {
         return this.appointments;
     }
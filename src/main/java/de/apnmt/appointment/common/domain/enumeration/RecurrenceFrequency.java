@@ -0,0 +1,22 @@
+package de.apnmt.appointment.common.domain.enumeration;
+
+/**
+ * The RecurrenceFrequency enumeration.
+ */
+public enum RecurrenceFrequency {
+    DAILY(1),
+    WEEKLY(7);
+
+    private final int days;
+
+    RecurrenceFrequency(int days) {
+        this.days = days;
+    }
+
+    /**
+     * @return the number of days between two occurrences with an interval of one.
+     */
+    public int getDays() {
+        return this.days;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * JPA domain enumerations.
+ */
+package de.apnmt.appointment.common.domain.enumeration;
@@ -0,0 +1,22 @@
+package de.apnmt.appointment.common.repository;
+
+/**
+ * Projection of the aggregates of a group of single appointments.
+ */
+public interface AppointmentAggregate {
+
+    /**
+     * @return the value the appointments are grouped by, e.g. the employee id or the epoch day.
+     */
+    Long getGroupKey();
+
+    Long getAppointmentCount();
+
+    Long getBookedMinutes();
+
+    /**
+     * @return the summed cost of the services, {@code null} if none of the appointments has a service.
+     */
+    Double getRevenue();
+
+}
@@ -1,11 +1,19 @@
 package de.apnmt.appointment.common.repository;
 
 import de.apnmt.appointment.common.domain.Appointment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Spring Data SQL repository for the Appointment entity.
@@ -18,4 +26,152 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
 
     List<Appointment> findAllByOrganizationIdAndStartAtAfterAndStartAtBefore(Long organizationId, LocalDateTime start, LocalDateTime end);
 
+    List<Appointment> findAllByOrganizationIdAndEmployeeIdAndRecurrenceRuleIsNullAndStartAtAfterAndStartAtBefore(Long organizationId, Long employeeId, LocalDateTime start, LocalDateTime end);
+
+    List<Appointment> findAllByOrganizationIdAndRecurrenceRuleIsNullAndStartAtAfterAndStartAtBefore(Long organizationId, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Ordered and limited variant of {@link #findAllByOrganizationIdAndEmployeeIdAndRecurrenceRuleIsNullAndStartAtAfterAndStartAtBefore},
+     * backed by the index {@code ix_appointment__organization_id_employee_id_start_at}.
+     */
+    List<Appointment> findAllByOrganizationIdAndEmployeeIdAndRecurrenceRuleIsNullAndStartAtAfterAndStartAtBeforeOrderByStartAtAsc(Long organizationId, Long employeeId, LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    /**
+     * Ordered and limited variant of {@link #findAllByOrganizationIdAndRecurrenceRuleIsNullAndStartAtAfterAndStartAtBefore},
+     * backed by the index {@code ix_appointment__organization_id_start_at}.
+     */
+    List<Appointment> findAllByOrganizationIdAndRecurrenceRuleIsNullAndStartAtAfterAndStartAtBeforeOrderByStartAtAsc(Long organizationId, LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    /**
+     * Find the single appointments of an Organization starting before end after the given position, ordered by start and id.
+     * Backed by the index {@code ix_appointment__organization_id_start_at}.
+     */
+    @Query("select a from Appointment a where a.organizationId = :organizationId and a.recurrenceRule is null and a.startAt < :end" +
+            " and (a.startAt > :start or (a.startAt = :start and a.id > :afterId))" +
+            " order by a.startAt asc, a.id asc")
+    List<Appointment> findPage(
+            @Param("organizationId") Long organizationId,
+            @Param("start") LocalDateTime start,
+            @Param("afterId") Long afterId,
+            @Param("end") LocalDateTime end,
+            Pageable pageable
+    );
+
+    /**
+     * Find the single appointments of an Employee starting before end after the given position, ordered by start and id.
+     * Backed by the index {@code ix_appointment__organization_id_employee_id_start_at}.
+     */
+    @Query("select a from Appointment a where a.organizationId = :organizationId and a.employeeId = :employeeId and a.recurrenceRule is null and a.startAt < :end" +
+            " and (a.startAt > :start or (a.startAt = :start and a.id > :afterId))" +
+            " order by a.startAt asc, a.id asc")
+    List<Appointment> findPage(
+            @Param("organizationId") Long organizationId,
+            @Param("employeeId") Long employeeId,
+            @Param("start") LocalDateTime start,
+            @Param("afterId") Long afterId,
+            @Param("end") LocalDateTime end,
+            Pageable pageable
+    );
+
+    /**
+     * Find the single appointments of an Employee overlapping the window [startMinute, endMinute) in epoch minutes,
+     * i.e. starting before its end and ending after its start; touching appointments do not overlap.
+     * Backed by the index {@code ix_appointment__organization_id_employee_id_end_minute}, which only covers the
+     * appointments ending after the window starts.
+     */
+    List<Appointment> findAllByOrganizationIdAndEmployeeIdAndRecurrenceRuleIsNullAndStartMinuteLessThanAndEndMinuteGreaterThanOrderByStartMinuteAsc(Long organizationId, Long employeeId, long endMinute, long startMinute);
+
+    /**
+     * Check whether a single appointment of an Employee other than the given one overlaps a window in epoch minutes,
+     * see {@link #findAllByOrganizationIdAndEmployeeIdAndRecurrenceRuleIsNullAndStartMinuteLessThanAndEndMinuteGreaterThanOrderByStartMinuteAsc}.
+     * The database stops at the first match and no row is transferred.
+     */
+    boolean existsByOrganizationIdAndEmployeeIdAndRecurrenceRuleIsNullAndIdNotAndStartMinuteLessThanAndEndMinuteGreaterThan(Long organizationId, Long employeeId, Long id, long endMinute, long startMinute);
+
+    /**
+     * Cursor based variant of {@link #findAllByOrganizationIdAndRecurrenceRuleIsNullAndStartAtAfterAndStartAtBefore(Long, LocalDateTime, LocalDateTime)}.
+     * Rows are fetched from the database in chunks while the stream is consumed, so it must be used inside a transaction and closed afterwards.
+     */
+    @EntityGraph(attributePaths = {"customer", "service"})
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    Stream<Appointment> streamAllByOrganizationIdAndRecurrenceRuleIsNullAndStartAtAfterAndStartAtBefore(Long organizationId, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Find the recurring appointments of an Employee whose series may have occurrences between start and end.
+     */
+    @Query("select distinct a from Appointment a join fetch a.recurrenceRule r left join fetch r.exceptions " +
+            "where a.organizationId = :organizationId and a.employeeId = :employeeId and a.startAt < :end and (r.until is null or r.until > :start)")
+    List<Appointment> findAllSeriesByOrganizationIdAndEmployeeId(@Param("organizationId") Long organizationId, @Param("employeeId") Long employeeId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Find the recurring appointments of an Organization whose series may have occurrences between start and end.
+     */
+    @Query("select distinct a from Appointment a join fetch a.recurrenceRule r left join fetch r.exceptions " +
+            "where a.organizationId = :organizationId and a.startAt < :end and (r.until is null or r.until > :start)")
+    List<Appointment> findAllSeriesByOrganizationId(@Param("organizationId") Long organizationId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Find the appointments of an Organization modified after the given position, ordered by modification date and id.
+     * Backed by the index {@code ix_appointment__organization_id_last_modified_date}.
+     */
+    @EntityGraph(attributePaths = {"customer", "service"})
+    @Query("select a from Appointment a where a.organizationId = :organizationId and a.lastModifiedDate < :until" +
+            " and (a.lastModifiedDate > :since or (a.lastModifiedDate = :since and a.id > :afterId))" +
+            " order by a.lastModifiedDate asc, a.id asc")
+    List<Appointment> findChanges(
+            @Param("organizationId") Long organizationId,
+            @Param("since") Instant since,
+            @Param("afterId") Long afterId,
+            @Param("until") Instant until,
+            Pageable pageable
+    );
+
+    /**
+     * Cursor over all Appointments of an Organization, ordered by id, for exports.
+     * Rows are fetched from the database in chunks while the stream is consumed, so it must be used inside a transaction and closed afterwards.
+     */
+    @EntityGraph(attributePaths = {"customer", "service", "recurrenceRule"})
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    Stream<Appointment> streamAllByOrganizationIdOrderById(Long organizationId);
+
+    /**
+     * Aggregate the single appointments of an Organization starting in [startMinute, endMinute) per employee.
+     */
+    @Query("select a.employeeId as groupKey, count(a) as appointmentCount, sum(a.endMinute - a.startMinute) as bookedMinutes, sum(s.cost) as revenue" +
+            " from Appointment a left join a.service s" +
+            " where a.organizationId = :organizationId and a.recurrenceRule is null and a.startMinute >= :startMinute and a.startMinute < :endMinute" +
+            " group by a.employeeId")
+    List<AppointmentAggregate> aggregateByEmployee(@Param("organizationId") Long organizationId, @Param("startMinute") long startMinute, @Param("endMinute") long endMinute);
+
+    /**
+     * Aggregate the single appointments of an Organization starting in [startMinute, endMinute) per service.
+     */
+    @Query("select s.id as groupKey, count(a) as appointmentCount, sum(a.endMinute - a.startMinute) as bookedMinutes, sum(s.cost) as revenue" +
+            " from Appointment a left join a.service s" +
+            " where a.organizationId = :organizationId and a.recurrenceRule is null and a.startMinute >= :startMinute and a.startMinute < :endMinute" +
+            " group by s.id")
+    List<AppointmentAggregate> aggregateByService(@Param("organizationId") Long organizationId, @Param("startMinute") long startMinute, @Param("endMinute") long endMinute);
+
+    /**
+     * Aggregate the single appointments of an Organization starting in [startMinute, endMinute) per epoch day of their start.
+     */
+    @Query("select a.startMinute / 1440 as groupKey, count(a) as appointmentCount, sum(a.endMinute - a.startMinute) as bookedMinutes, sum(s.cost) as revenue" +
+            " from Appointment a left join a.service s" +
+            " where a.organizationId = :organizationId and a.recurrenceRule is null and a.startMinute >= :startMinute and a.startMinute < :endMinute" +
+            " group by a.startMinute / 1440")
+    List<AppointmentAggregate> aggregateByDay(@Param("organizationId") Long organizationId, @Param("startMinute") long startMinute, @Param("endMinute") long endMinute);
+
+    /**
+     * Aggregate the single appointments of an Organization starting in [startMinute, endMinute) per employee and day,
+     * to rebuild their {@link de.apnmt.appointment.common.domain.DailyOccupancy}.
+     */
+    @Query("select a.employeeId as employeeId, a.startMinute / 1440 as epochDay, count(a) as appointmentCount, sum(a.endMinute - a.startMinute) as bookedMinutes" +
+            " from Appointment a" +
+            " where a.organizationId = :organizationId and a.recurrenceRule is null and a.startMinute >= :startMinute and a.startMinute < :endMinute" +
+            " group by a.employeeId, a.startMinute / 1440")
+    List<DailyOccupancyAggregate> aggregateByEmployeeAndDay(@Param("organizationId") Long organizationId, @Param("startMinute") long startMinute, @Param("endMinute") long endMinute);
+
+    @Query("select distinct a.organizationId from Appointment a")
+    List<Long> findAllOrganizationIds();
+
 }
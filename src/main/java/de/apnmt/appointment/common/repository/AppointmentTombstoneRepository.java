@@ -0,0 +1,40 @@
+package de.apnmt.appointment.common.repository;
+
+import de.apnmt.appointment.common.domain.AppointmentTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data SQL repository for the AppointmentTombstone entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface AppointmentTombstoneRepository extends JpaRepository<AppointmentTombstone, Long> {
+
+    /**
+     * Find the tombstones of an organization after the given position, ordered by deletion date and appointment id.
+     * Backed by the index {@code ix_appointment_tombstone__organization_id_deleted_date}.
+     */
+    @Query("select t from AppointmentTombstone t where t.organizationId = :organizationId and t.deletedDate < :until" +
+            " and (t.deletedDate > :since or (t.deletedDate = :since and t.appointmentId > :afterId))" +
+            " order by t.deletedDate asc, t.appointmentId asc")
+    List<AppointmentTombstone> findChanges(
+            @Param("organizationId") Long organizationId,
+            @Param("since") Instant since,
+            @Param("afterId") Long afterId,
+            @Param("until") Instant until,
+            Pageable pageable
+    );
+
+    @Modifying
+    @Query("delete from AppointmentTombstone t where t.deletedDate < :deletedDate")
+    int deleteAllByDeletedDateBefore(@Param("deletedDate") Instant deletedDate);
+
+}
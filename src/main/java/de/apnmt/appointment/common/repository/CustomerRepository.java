@@ -1,10 +1,18 @@
 package de.apnmt.appointment.common.repository;
 
 import de.apnmt.appointment.common.domain.Customer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Spring Data SQL repository for the Customer entity.
@@ -15,4 +23,26 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     List<Customer> findAllByOrganizationId(Long organizationId);
 
+    Page<Customer> findAllByOrganizationId(Long organizationId, Pageable pageable);
+
+    List<Customer> findAllByOrganizationIdOrderById(Long organizationId, Pageable pageable);
+
+    /**
+     * Backed by the index {@code ix_customer__organization_id_last_modified_date}.
+     */
+    List<Customer> findAllByOrganizationIdAndLastModifiedDateAfter(Long organizationId, Instant lastModifiedDate);
+
+    List<Customer> findAllByOrganizationIdAndLastModifiedDateAfter(Long organizationId, Instant lastModifiedDate, Pageable pageable);
+
+    Optional<Customer> findFirstByOrganizationIdAndNormalizedMail(Long organizationId, String normalizedMail);
+
+    List<Customer> findAllByOrganizationIdAndNormalizedMailIn(Long organizationId, Collection<String> normalizedMails);
+
+    /**
+     * Cursor over all Customers of an Organization, ordered by id, for exports.
+     * Rows are fetched from the database in chunks while the stream is consumed, so it must be used inside a transaction and closed afterwards.
+     */
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    Stream<Customer> streamAllByOrganizationIdOrderById(Long organizationId);
+
 }
@@ -0,0 +1,16 @@
+package de.apnmt.appointment.common.repository;
+
+/**
+ * Projection of the aggregates of the single appointments of an employee starting on a day.
+ */
+public interface DailyOccupancyAggregate {
+
+    Long getEmployeeId();
+
+    Long getEpochDay();
+
+    Long getAppointmentCount();
+
+    Long getBookedMinutes();
+
+}
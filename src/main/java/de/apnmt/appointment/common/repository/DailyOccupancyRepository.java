@@ -0,0 +1,41 @@
+package de.apnmt.appointment.common.repository;
+
+import de.apnmt.appointment.common.domain.DailyOccupancy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Spring Data SQL repository for the DailyOccupancy entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface DailyOccupancyRepository extends JpaRepository<DailyOccupancy, Long> {
+
+    List<DailyOccupancy> findAllByOrganizationIdAndEpochDayGreaterThanEqualAndEpochDayLessThanOrderByEpochDayAscEmployeeIdAsc(Long organizationId, long startDay, long endDay);
+
+    /**
+     * Add appointments to the occupancy of a day in place, so that concurrent bookings of the same day do not overwrite each other.
+     *
+     * @return the number of updated rows, {@code 0} if the day has no occupancy yet.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update DailyOccupancy d set d.appointments = d.appointments + :appointments, d.bookedMinutes = d.bookedMinutes + :bookedMinutes" +
+            " where d.organizationId = :organizationId and d.employeeId = :employeeId and d.epochDay = :epochDay")
+    int increment(
+            @Param("organizationId") Long organizationId,
+            @Param("employeeId") Long employeeId,
+            @Param("epochDay") long epochDay,
+            @Param("appointments") long appointments,
+            @Param("bookedMinutes") long bookedMinutes
+    );
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from DailyOccupancy d where d.organizationId = :organizationId and d.epochDay >= :startDay and d.epochDay < :endDay")
+    int deleteAllInRange(@Param("organizationId") Long organizationId, @Param("startDay") long startDay, @Param("endDay") long endDay);
+
+}
@@ -0,0 +1,32 @@
+package de.apnmt.appointment.common.repository;
+
+import de.apnmt.appointment.common.domain.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Spring Data SQL repository for the IdempotencyRecord entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecord.RecordId> {
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :createdAt")
+    int deleteAllByCreatedAtBefore(@Param("createdAt") Instant createdAt);
+
+    /**
+     * Delete a record only if it has not been replaced in the meantime, used to take over expired and abandoned records.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyRecord r where r.organizationId = :organizationId and r.idempotencyKey = :idempotencyKey and r.createdAt = :createdAt")
+    int deleteStale(@Param("organizationId") Long organizationId, @Param("idempotencyKey") String idempotencyKey, @Param("createdAt") Instant createdAt);
+
+}
@@ -0,0 +1,13 @@
+package de.apnmt.appointment.common.repository;
+
+import de.apnmt.appointment.common.domain.ImportProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the ImportProgress entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface ImportProgressRepository extends JpaRepository<ImportProgress, ImportProgress.ProgressId> {
+}
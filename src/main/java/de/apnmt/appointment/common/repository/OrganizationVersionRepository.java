@@ -0,0 +1,41 @@
+package de.apnmt.appointment.common.repository;
+
+import de.apnmt.appointment.common.domain.OrganizationVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the OrganizationVersion entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface OrganizationVersionRepository extends JpaRepository<OrganizationVersion, Long> {
+
+    /**
+     * Increment the counters of an organization in place, so that concurrent changes are all counted.
+     *
+     * @return the number of updated rows, {@code 0} if the organization has no counters yet.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update OrganizationVersion v set v.serviceVersion = v.serviceVersion + :services, v.customerVersion = v.customerVersion + :customers," +
+            " v.appointmentVersion = v.appointmentVersion + :appointments where v.organizationId = :organizationId")
+    int increment(@Param("organizationId") Long organizationId, @Param("services") int services, @Param("customers") int customers, @Param("appointments") int appointments);
+
+    /**
+     * Insert the counters of an organization. Unlike saving a new {@link OrganizationVersion}, which merges it with the
+     * assigned id, a concurrently inserted row is never overwritten, the insert fails on the primary key instead.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into organization_version (organization_id, service_version, customer_version, appointment_version)" +
+            " values (:organizationId, :services, :customers, :appointments)", nativeQuery = true)
+    int insert(@Param("organizationId") Long organizationId, @Param("services") int services, @Param("customers") int customers, @Param("appointments") int appointments);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update OrganizationVersion v set v.serviceVersion = v.serviceVersion + :services, v.customerVersion = v.customerVersion + :customers," +
+            " v.appointmentVersion = v.appointmentVersion + :appointments")
+    int incrementAll(@Param("services") int services, @Param("customers") int customers, @Param("appointments") int appointments);
+
+}
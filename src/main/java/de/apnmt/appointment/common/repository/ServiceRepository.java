@@ -1,10 +1,16 @@
 package de.apnmt.appointment.common.repository;
 
 import de.apnmt.appointment.common.domain.Service;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Spring Data SQL repository for the Service entity.
@@ -15,6 +21,24 @@ public interface ServiceRepository extends JpaRepository<Service, Long> {
 
     List<Service> findAllByOrganizationId(Long organizationId);
 
+    Page<Service> findAllByOrganizationId(Long organizationId, Pageable pageable);
+
+    List<Service> findAllByOrganizationIdOrderById(Long organizationId, Pageable pageable);
+
+    /**
+     * Backed by the index {@code ix_service__organization_id_last_modified_date}.
+     */
+    List<Service> findAllByOrganizationIdAndLastModifiedDateAfter(Long organizationId, Instant lastModifiedDate);
+
+    List<Service> findAllByOrganizationIdAndLastModifiedDateAfter(Long organizationId, Instant lastModifiedDate, Pageable pageable);
+
     void deleteAllByIdGreaterThan(Long id);
 
+    /**
+     * Cursor over all Services of an Organization, ordered by id, for exports.
+     * Rows are fetched from the database in chunks while the stream is consumed, so it must be used inside a transaction and closed afterwards.
+     */
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    Stream<Service> streamAllByOrganizationIdOrderById(Long organizationId);
+
 }
@@ -0,0 +1,40 @@
+package de.apnmt.appointment.common.service;
+
+import org.zalando.problem.Status;
+
+import java.time.Duration;
+
+/**
+ * Thrown by {@link BookingAdmissionControl} when a booking write is not admitted.
+ * Carries the status of the response and the time after which the client may retry.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Status status;
+
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(Status status, String message, Duration retryAfter) {
+        super(message);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public Duration getRetryAfter() {
+        return this.retryAfter;
+    }
+
+    /**
+     * @return the retry delay in whole seconds as sent in the {@code Retry-After} header, at least one second.
+     */
+    public long getRetryAfterSeconds() {
+        long seconds = this.retryAfter.getSeconds() + (this.retryAfter.getNano() > 0 ? 1 : 0);
+        return Math.max(1, seconds);
+    }
+}
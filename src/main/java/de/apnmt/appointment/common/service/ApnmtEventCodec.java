@@ -0,0 +1,181 @@
+package de.apnmt.appointment.common.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import de.apnmt.common.event.ApnmtEvent;
+import de.apnmt.common.event.value.AppointmentEventDTO;
+import de.apnmt.common.event.value.ServiceEventDTO;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary encoding of {@link ApnmtEvent}s for senders and receivers of high-volume topics.
+ * <p>
+ * Events are encoded as Smile without {@code null} values, prefixed with a magic byte and the 4-byte schema id of the
+ * event value type. The schema id is derived from the value type name and its property names, so a receiver with a
+ * different version of the value type rejects the payload instead of silently dropping fields.
+ * The codec holds the known schemas itself, standing in for an external schema registry.
+ */
+@Component
+public class ApnmtEventCodec {
+
+    private static final byte MAGIC_BYTE = 0x0;
+
+    private static final int HEADER_LENGTH = 5;
+
+    private final ObjectMapper mapper;
+
+    private final Map<Integer, Class<?>> schemas = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Integer> schemaIds = new ConcurrentHashMap<>();
+
+    public ApnmtEventCodec() {
+        this.mapper = new SmileMapper()
+                .findAndRegisterModules()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.register(AppointmentEventDTO.class);
+        this.register(ServiceEventDTO.class);
+    }
+
+    /**
+     * Register an event value type.
+     *
+     * @param valueType the event value type.
+     * @return the schema id of the value type.
+     */
+    public int register(Class<?> valueType) {
+        return this.schemaIds.computeIfAbsent(valueType, type -> {
+            int schemaId = this.computeSchemaId(type);
+            Class<?> existing = this.schemas.putIfAbsent(schemaId, type);
+            if (existing != null && existing != type) {
+                throw new IllegalStateException("Schema id " + schemaId + " of " + type.getName() + " is already used by " + existing.getName());
+            }
+            return schemaId;
+        });
+    }
+
+    /**
+     * Encode an event.
+     *
+     * @param event the event to encode.
+     * @return the encoded event.
+     */
+    public byte[] encode(ApnmtEvent<?> event) {
+        int schemaId = event.getValue() != null ? this.register(event.getValue().getClass()) : 0;
+        try {
+            byte[] body = this.mapper.writeValueAsBytes(event);
+            return ByteBuffer.allocate(HEADER_LENGTH + body.length).put(MAGIC_BYTE).putInt(schemaId).put(body).array();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decode an event.
+     *
+     * @param payload   the encoded event.
+     * @param valueType the expected event value type.
+     * @param <T>       the event value type.
+     * @return the decoded event.
+     * @throws IllegalArgumentException if the payload is not an encoded event of the expected value type.
+     */
+    public <T> ApnmtEvent<T> decode(byte[] payload, Class<T> valueType) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        if (payload.length < HEADER_LENGTH || buffer.get() != MAGIC_BYTE) {
+            throw new IllegalArgumentException("Payload is not an encoded event");
+        }
+        int schemaId = buffer.getInt();
+        if (schemaId != 0 && schemaId != this.register(valueType)) {
+            Class<?> actual = this.schemas.get(schemaId);
+            throw new IllegalArgumentException("Payload with schema id " + schemaId + " (" + (actual != null ? actual.getName() : "unknown") + ") is not a " + valueType.getName());
+        }
+        JavaType type = this.mapper.getTypeFactory().constructParametricType(ApnmtEvent.class, valueType);
+        try {
+            return this.mapper.readValue(payload, HEADER_LENGTH, payload.length - HEADER_LENGTH, type);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Payload is not a valid " + valueType.getName() + " event", e);
+        }
+    }
+
+    /**
+     * Reduce an event value to the properties changed between two states.
+     *
+     * @param previous the previous state.
+     * @param current  the current state.
+     * @param retained properties retained even if unchanged, e.g. the identifying properties.
+     * @param <T>      the event value type.
+     * @return a value holding only the changed and the retained properties, all others are {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T delta(T previous, T current, String... retained) {
+        if (previous == null) {
+            return current;
+        }
+        List<String> retainedProperties = Arrays.asList(retained);
+        JsonNode previousNode = this.mapper.valueToTree(previous);
+        ObjectNode currentNode = this.mapper.valueToTree(current);
+        Iterator<Map.Entry<String, JsonNode>> fields = currentNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!retainedProperties.contains(field.getKey()) && field.getValue().equals(previousNode.get(field.getKey()))) {
+                fields.remove();
+            }
+        }
+        try {
+            return (T) this.mapper.treeToValue(currentNode, current.getClass());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Merge two event values, properties of the current value override those of the previous one.
+     *
+     * @param previous the previous value.
+     * @param current  the current value, possibly a delta.
+     * @param <T>      the event value type.
+     * @return the merged value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T merge(T previous, T current) {
+        if (previous == null || current == null) {
+            return current;
+        }
+        ObjectNode merged = this.mapper.valueToTree(previous);
+        merged.setAll((ObjectNode) this.mapper.valueToTree(current));
+        try {
+            return (T) this.mapper.treeToValue(merged, current.getClass());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int computeSchemaId(Class<?> valueType) {
+        String properties = this.mapper.getSerializationConfig().introspect(this.mapper.constructType(valueType)).findProperties().stream()
+                .map(BeanPropertyDefinition::getName)
+                .sorted()
+                .collect(Collectors.joining(","));
+        CRC32 crc = new CRC32();
+        crc.update((valueType.getName() + ":" + properties).getBytes(StandardCharsets.UTF_8));
+        // 0 is reserved for events without value
+        return (int) crc.getValue() == 0 ? 1 : (int) crc.getValue();
+    }
+}
@@ -0,0 +1,112 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.appointment.common.domain.Appointment;
+import de.apnmt.appointment.common.domain.AppointmentTombstone;
+import de.apnmt.appointment.common.repository.AppointmentRepository;
+import de.apnmt.appointment.common.repository.AppointmentTombstoneRepository;
+import de.apnmt.appointment.common.service.dto.AppointmentChangeDTO;
+import de.apnmt.appointment.common.service.mapper.AppointmentMapper;
+import de.apnmt.appointment.common.sharding.AllShards;
+import de.apnmt.appointment.common.sharding.ShardKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Service providing the changes of the appointments of an organization since a watermark, so that consumers can sync
+ * incrementally instead of reloading whole ranges.
+ * <p>
+ * Changes are ordered by modification date and appointment id; the pair of the last received change is the watermark of
+ * the next request. Changes younger than {@code application.change-feed.lag} are held back, so that transactions
+ * committing slightly out of order are not skipped. The modification dates are stamped before the commit, so transactions
+ * committing later than the lag after their first stamp may be skipped; the
+ * {@link de.apnmt.appointment.common.domain.ChangeFeedListener} can be enabled to roll them back instead. Deletions are reported until their tombstones are purged after
+ * {@code application.change-feed.tombstone-retention}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AppointmentChangeFeedService {
+
+    private static final Comparator<AppointmentChangeDTO> FEED_ORDER = Comparator.comparing(AppointmentChangeDTO::getModifiedDate)
+            .thenComparing(AppointmentChangeDTO::getAppointmentId);
+
+    private final Logger log = LoggerFactory.getLogger(AppointmentChangeFeedService.class);
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final AppointmentTombstoneRepository appointmentTombstoneRepository;
+
+    private final AppointmentMapper appointmentMapper;
+
+    private final Duration lag;
+
+    private final Duration tombstoneRetention;
+
+    public AppointmentChangeFeedService(
+            AppointmentRepository appointmentRepository,
+            AppointmentTombstoneRepository appointmentTombstoneRepository,
+            AppointmentMapper appointmentMapper,
+            @Value("${application.change-feed.lag:5s}") Duration lag,
+            @Value("${application.change-feed.tombstone-retention:30d}") Duration tombstoneRetention
+    ) {
+        this.appointmentRepository = appointmentRepository;
+        this.appointmentTombstoneRepository = appointmentTombstoneRepository;
+        this.appointmentMapper = appointmentMapper;
+        this.lag = lag;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    /**
+     * Get the changes of the appointments of an organization after a watermark.
+     *
+     * @param organizationId the organization id.
+     * @param since          the modification date of the watermark, {@code null} to start from the beginning.
+     * @param afterId        the appointment id of the watermark, {@code null} to include all changes at {@code since}.
+     * @param size           the maximum number of changes.
+     * @return the changes in feed order.
+     */
+    public List<AppointmentChangeDTO> findChanges(@ShardKey Long organizationId, Instant since, Long afterId, int size) {
+        this.log.debug("Request to get changes of Appointments for Organization {} since {}/{}", organizationId, since, afterId);
+        Instant from = since != null ? since : Instant.EPOCH;
+        long after = afterId != null ? afterId : Long.MIN_VALUE;
+        Instant until = Instant.now().minus(this.lag);
+        PageRequest page = PageRequest.of(0, size);
+
+        List<AppointmentChangeDTO> changes = new ArrayList<>();
+        for (Appointment appointment : this.appointmentRepository.findChanges(organizationId, from, after, until, page)) {
+            AppointmentChangeDTO.Type type = this.isAfter(appointment.getCreatedDate(), appointment.getId(), from, after) ?
+                    AppointmentChangeDTO.Type.CREATED : AppointmentChangeDTO.Type.UPDATED;
+            changes.add(new AppointmentChangeDTO(type, appointment.getId(), appointment.getLastModifiedDate(), this.appointmentMapper.toDto(appointment)));
+        }
+        for (AppointmentTombstone tombstone : this.appointmentTombstoneRepository.findChanges(organizationId, from, after, until, page)) {
+            changes.add(new AppointmentChangeDTO(AppointmentChangeDTO.Type.DELETED, tombstone.getAppointmentId(), tombstone.getDeletedDate(), null));
+        }
+        changes.sort(FEED_ORDER);
+        return changes.size() > size ? new ArrayList<>(changes.subList(0, size)) : changes;
+    }
+
+    /**
+     * Purge the tombstones older than the retention.
+     */
+    @Scheduled(fixedDelayString = "${application.change-feed.purge-interval:PT1H}")
+    @Transactional
+    @AllShards
+    public void purgeTombstones() {
+        int deleted = this.appointmentTombstoneRepository.deleteAllByDeletedDateBefore(Instant.now().minus(this.tombstoneRetention));
+        this.log.debug("Purged {} appointment tombstones", deleted);
+    }
+
+    private boolean isAfter(Instant date, Long id, Instant since, long afterId) {
+        return date != null && (date.isAfter(since) || (date.equals(since) && id > afterId));
+    }
+}
@@ -1,10 +1,14 @@
 package de.apnmt.appointment.common.service;
 
 import de.apnmt.appointment.common.domain.Appointment;
+import de.apnmt.appointment.common.domain.AppointmentTombstone;
 import de.apnmt.appointment.common.repository.AppointmentRepository;
+import de.apnmt.appointment.common.repository.AppointmentTombstoneRepository;
 import de.apnmt.appointment.common.service.dto.AppointmentDTO;
 import de.apnmt.appointment.common.service.mapper.AppointmentEventMapper;
 import de.apnmt.appointment.common.service.mapper.AppointmentMapper;
+import de.apnmt.appointment.common.sharding.AllShards;
+import de.apnmt.appointment.common.sharding.ShardKey;
 import de.apnmt.common.TopicConstants;
 import de.apnmt.common.errors.HttpError;
 import de.apnmt.common.event.ApnmtEvent;
@@ -13,17 +17,33 @@ import de.apnmt.common.event.value.AppointmentEventDTO;
 import de.apnmt.common.sender.ApnmtEventSender;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.zalando.problem.Status;
 
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service Implementation for managing {@link Appointment}.
@@ -32,6 +52,17 @@ import java.util.stream.Collectors;
 @Transactional
 public class AppointmentService {
 
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    /**
+     * SQL state of a violated exclusion constraint on PostgreSQL.
+     */
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private static final Comparator<Appointment> START_ORDER = Comparator.comparing(Appointment::getStartAt);
+
+    private static final Comparator<Appointment> PAGE_ORDER = START_ORDER.thenComparing(Appointment::getId);
+
     private final Logger log = LoggerFactory.getLogger(AppointmentService.class);
 
     private final AppointmentRepository appointmentRepository;
@@ -42,44 +73,247 @@ public class AppointmentService {
 
     private final AppointmentEventMapper appointmentEventMapper;
 
-    public AppointmentService(AppointmentRepository appointmentRepository, AppointmentMapper appointmentMapper, ApnmtEventSender<AppointmentEventDTO> sender, AppointmentEventMapper appointmentEventMapper) {
+    private final EntityManager entityManager;
+
+    private final Duration recurrenceCheckHorizon;
+
+    private final CustomerService customerService;
+
+    private final AppointmentTombstoneRepository appointmentTombstoneRepository;
+
+    private final boolean databaseOverlapCheck;
+
+    private final DailyOccupancyService dailyOccupancyService;
+
+    private final ResultLimits resultLimits;
+
+    private final OrganizationVersionService organizationVersionService;
+
+    private final CustomerSearchIndex customerSearchIndex;
+
+    private final ConcurrentInsertRetry concurrentInsertRetry;
+
+    public AppointmentService(
+            AppointmentRepository appointmentRepository,
+            AppointmentMapper appointmentMapper,
+            ApnmtEventSender<AppointmentEventDTO> sender,
+            AppointmentEventMapper appointmentEventMapper,
+            EntityManager entityManager,
+            @Value("${application.recurrence.check-horizon:365d}") Duration recurrenceCheckHorizon,
+            CustomerService customerService,
+            AppointmentTombstoneRepository appointmentTombstoneRepository,
+            @Value("${application.appointments.database-overlap-check:false}") boolean databaseOverlapCheck,
+            DailyOccupancyService dailyOccupancyService,
+            ResultLimits resultLimits,
+            OrganizationVersionService organizationVersionService,
+            CustomerSearchIndex customerSearchIndex,
+            ConcurrentInsertRetry concurrentInsertRetry
+    ) {
         this.appointmentRepository = appointmentRepository;
         this.appointmentMapper = appointmentMapper;
         this.sender = sender;
         this.appointmentEventMapper = appointmentEventMapper;
+        this.entityManager = entityManager;
+        this.recurrenceCheckHorizon = recurrenceCheckHorizon;
+        this.customerService = customerService;
+        this.appointmentTombstoneRepository = appointmentTombstoneRepository;
+        this.databaseOverlapCheck = databaseOverlapCheck;
+        this.dailyOccupancyService = dailyOccupancyService;
+        this.resultLimits = resultLimits;
+        this.organizationVersionService = organizationVersionService;
+        this.customerSearchIndex = customerSearchIndex;
+        this.concurrentInsertRetry = concurrentInsertRetry;
     }
 
     /**
      * Save a appointment.
+     * <p>
+     * With {@code application.appointments.database-overlap-check}, overlaps between single appointments are rejected by
+     * the exclusion constraint {@code ex_appointment__overlap} instead of reading the appointments of the employee first;
+     * only occurrences of recurring appointments are still checked before writing.
+     * The {@link DailyOccupancyService daily occupancy} is updated and a new customer is inserted in the same transaction,
+     * which is repeated by the {@link ConcurrentInsertRetry} if a concurrent booking inserts the same customer or the
+     * occupancy of the same day first. The event is sent once the transaction has committed.
      *
      * @param appointmentDTO the entity to save.
      * @return the persisted entity.
      */
-    public AppointmentDTO save(AppointmentDTO appointmentDTO) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AppointmentDTO save(@ShardKey AppointmentDTO appointmentDTO) {
         this.log.debug("Request to save Appointment : {}", appointmentDTO);
+        return this.concurrentInsertRetry.execute("appointment", () -> this.saveInTransaction(appointmentDTO));
+    }
+
+    private AppointmentDTO saveInTransaction(AppointmentDTO appointmentDTO) {
         Appointment appointment = this.appointmentMapper.toEntity(appointmentDTO);
         this.checkAvailability(appointment);
-        appointment = this.appointmentRepository.save(appointment);
-        this.sender.send(TopicConstants.APPOINTMENT_CHANGED_TOPIC, this.createEvent(appointment, ApnmtEventType.appointmentCreated));
-        return this.appointmentMapper.toDto(appointment);
+        appointment.setCustomer(this.customerService.resolve(appointment.getCustomer()));
+        boolean newCustomer = appointment.getCustomer() != null && appointment.getCustomer().getId() == null;
+        if (newCustomer) {
+            // the new customer is inserted together with the appointment
+            this.organizationVersionService.customersChanged(appointment.getOrganizationId());
+        }
+        if (appointment.getId() != null) {
+            this.appointmentRepository.findById(appointment.getId()).ifPresent(this.dailyOccupancyService::remove);
+        }
+        if (this.isOverlapCheckedByDatabase(appointment)) {
+            try {
+                appointment = this.appointmentRepository.saveAndFlush(appointment);
+            } catch (DataIntegrityViolationException e) {
+                Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+                if (cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                    throw this.slotNotAvailable(appointment, appointment);
+                }
+                throw e;
+            }
+        } else {
+            appointment = this.appointmentRepository.save(appointment);
+        }
+        this.dailyOccupancyService.add(appointment);
+        this.organizationVersionService.appointmentsChanged(appointment.getOrganizationId());
+        this.sendAfterCommit(this.createEvent(appointment, ApnmtEventType.appointmentCreated));
+        AppointmentDTO result = this.appointmentMapper.toDto(appointment);
+        if (newCustomer) {
+            this.customerSearchIndex.update(result.getCustomer());
+        }
+        return result;
+    }
+
+    private void sendAfterCommit(ApnmtEvent<AppointmentEventDTO> event) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                AppointmentService.this.sender.send(TopicConstants.APPOINTMENT_CHANGED_TOPIC, event);
+            }
+        });
     }
 
     private ApnmtEvent<AppointmentEventDTO> createEvent(Appointment appointment, ApnmtEventType type) {
         return new ApnmtEvent<AppointmentEventDTO>().timestamp(LocalDateTime.now()).type(type).value(this.appointmentEventMapper.toDto(appointment));
     }
 
+    /**
+     * Check that the appointment, or every occurrence of a recurring appointment within the check horizon,
+     * does not overlap any other (occurrence of an) appointment of the employee. Touching boundaries are allowed.
+     * <p>
+     * Only the appointments overlapping the window from the start of the first to the end of the last candidate are read.
+     * For a single candidate the overlap with single appointments is tested by an exists query, so no rows are read on
+     * the common path without conflict. The remaining appointments are ordered by their start, so the scan for a
+     * candidate stops at the first appointment starting after the candidate ends.
+     */
     private void checkAvailability(Appointment appointment) {
-        LocalDateTime start = appointment.getStartAt().truncatedTo(ChronoUnit.DAYS);
-        LocalDateTime end = start.plusDays(1);
-        List<Appointment> appointments = this.appointmentRepository.findAllByOrganizationIdAndEmployeeIdAndStartAtAfterAndStartAtBefore(appointment.getOrganizationId(), appointment.getEmployeeId(), start, end);
+        List<Appointment> candidates;
+        if (appointment.getRecurrenceRule() == null) {
+            candidates = List.of(appointment);
+        } else {
+            this.validateRecurrence(appointment);
+            LocalDateTime horizon = appointment.getStartAt().plus(this.recurrenceCheckHorizon);
+            candidates = RecurrenceExpander.expand(appointment, appointment.getStartAt(), horizon);
+            if (candidates.isEmpty()) {
+                return;
+            }
+        }
+        long id = appointment.getId() != null ? appointment.getId() : Long.MIN_VALUE;
+        long startMinute = candidates.get(0).getStartMinute();
+        long endMinute = candidates.get(candidates.size() - 1).getEndMinute();
+        boolean singlesChecked = this.isOverlapCheckedByDatabase(appointment);
+        if (!singlesChecked && candidates.size() == 1) {
+            if (this.appointmentRepository.existsByOrganizationIdAndEmployeeIdAndRecurrenceRuleIsNullAndIdNotAndStartMinuteLessThanAndEndMinuteGreaterThan(
+                    appointment.getOrganizationId(), appointment.getEmployeeId(), id, endMinute, startMinute)) {
+                throw this.slotNotAvailable(appointment, appointment);
+            }
+            singlesChecked = true;
+        }
+        List<Appointment> appointments = this.findAllOccurrencesForEmployee(
+                appointment.getOrganizationId(),
+                appointment.getEmployeeId(),
+                startMinute,
+                endMinute,
+                !singlesChecked
+        );
 
-        for (Appointment apnmt : appointments) {
-            if (!(appointment.getStartAt().isAfter(apnmt.getEndAt()) || appointment.getEndAt().isBefore(apnmt.getStartAt()) || appointment.getStartAt().equals(apnmt.getEndAt()) || appointment.getEndAt().equals(apnmt.getStartAt()))) {
-                throw new HttpError(Status.TOO_MANY_REQUESTS, "slot.not.available", "Slot from " + appointment.getStartAt() + " until " + appointment.getEndAt() + " for organization " + appointment.getOrganizationId() + " and employeeId " + appointment.getEmployeeId() + " is not available");
+        for (Appointment candidate : candidates) {
+            long candidateStart = candidate.getStartMinute();
+            long candidateEnd = candidate.getEndMinute();
+            for (Appointment apnmt : appointments) {
+                if (apnmt.getStartMinute() >= candidateEnd) {
+                    break;
+                }
+                if (apnmt.getId() == id) {
+                    continue;
+                }
+                if (candidateStart < apnmt.getEndMinute()) {
+                    throw this.slotNotAvailable(appointment, candidate);
+                }
             }
         }
     }
 
+    private HttpError slotNotAvailable(Appointment appointment, Appointment candidate) {
+        return new HttpError(Status.CONFLICT, "slot.not.available", "Slot from " + candidate.getStartAt() + " until " + candidate.getEndAt() + " for organization " + appointment.getOrganizationId() + " and employeeId " + appointment.getEmployeeId() + " is not available");
+    }
+
+    /**
+     * Overlaps between single appointments are rejected by the database if enabled, recurring appointments are not covered.
+     */
+    private boolean isOverlapCheckedByDatabase(Appointment appointment) {
+        return this.databaseOverlapCheck && appointment.getRecurrenceRule() == null;
+    }
+
+    private void validateRecurrence(Appointment appointment) {
+        Duration duration = Duration.between(appointment.getStartAt(), appointment.getEndAt());
+        if (duration.compareTo(Duration.ofDays(1)) >= 0) {
+            throw new HttpError(Status.BAD_REQUEST, "recurrence.invalid", "A recurring appointment must last less than a day");
+        }
+    }
+
+    /**
+     * Get the single appointments and the expanded occurrences of recurring appointments of an employee ordered by their start.
+     * As appointments last at most a day, series are searched from one day before the window.
+     */
+    private List<Appointment> findAllOccurrencesForEmployee(Long organizationId, Long employeeId, LocalDateTime start, LocalDateTime end) {
+        List<Appointment> appointments = new ArrayList<>(this.appointmentRepository.findAllByOrganizationIdAndEmployeeIdAndRecurrenceRuleIsNullAndStartAtAfterAndStartAtBeforeOrderByStartAtAsc(organizationId, employeeId, start, end, this.resultLimits.firstRows()));
+        for (Appointment series : this.appointmentRepository.findAllSeriesByOrganizationIdAndEmployeeId(organizationId, employeeId, start.minusDays(1), end)) {
+            appointments.addAll(RecurrenceExpander.expand(series, start, end));
+        }
+        return sortByStart(appointments);
+    }
+
+    /**
+     * Get the single appointments and the occurrences of recurring appointments of an employee overlapping the window
+     * [startMinute, endMinute) in epoch minutes, ordered by their start.
+     * The single appointments can be left out, e.g. if the database checks overlaps between them.
+     */
+    private List<Appointment> findAllOccurrencesForEmployee(Long organizationId, Long employeeId, long startMinute, long endMinute, boolean includeSingles) {
+        List<Appointment> appointments = new ArrayList<>();
+        if (includeSingles) {
+            appointments.addAll(this.appointmentRepository.findAllByOrganizationIdAndEmployeeIdAndRecurrenceRuleIsNullAndStartMinuteLessThanAndEndMinuteGreaterThanOrderByStartMinuteAsc(organizationId, employeeId, endMinute, startMinute));
+        }
+        LocalDateTime start = LocalDateTime.ofEpochSecond(startMinute * 60, 0, ZoneOffset.UTC);
+        LocalDateTime end = LocalDateTime.ofEpochSecond(endMinute * 60, 0, ZoneOffset.UTC);
+        for (Appointment series : this.appointmentRepository.findAllSeriesByOrganizationIdAndEmployeeId(organizationId, employeeId, start.minusDays(1), end)) {
+            appointments.addAll(RecurrenceExpander.expand(series, start, end));
+        }
+        return sortByStart(appointments);
+    }
+
+    private List<Appointment> findAllOccurrencesForOrganization(Long organizationId, LocalDateTime start, LocalDateTime end) {
+        List<Appointment> appointments = new ArrayList<>(this.appointmentRepository.findAllByOrganizationIdAndRecurrenceRuleIsNullAndStartAtAfterAndStartAtBeforeOrderByStartAtAsc(organizationId, start, end, this.resultLimits.firstRows()));
+        for (Appointment series : this.appointmentRepository.findAllSeriesByOrganizationId(organizationId, start.minusDays(1), end)) {
+            appointments.addAll(RecurrenceExpander.expand(series, start, end));
+        }
+        return sortByStart(appointments);
+    }
+
+    /**
+     * Merge the occurrences of the series into the single appointments, which the database already returns ordered.
+     * The list then consists of presorted runs, which the merge sort of {@link List#sort} combines without sorting them again.
+     */
+    private static List<Appointment> sortByStart(List<Appointment> appointments) {
+        appointments.sort(START_ORDER);
+        return appointments;
+    }
+
     /**
      * Get all the appointments.
      *
@@ -94,6 +328,8 @@ public class AppointmentService {
 
     /**
      * Get all the appointments for Employee and Organization.
+     * Recurring appointments are expanded into their occurrences within the range, the result is ordered by start.
+     * The range and the number of appointments are limited by {@link ResultLimits}.
      *
      * @param organizationId the id of the Organization.
      * @param employeeId     the id of the Employee.
@@ -101,22 +337,100 @@ public class AppointmentService {
      * @param end            the end Date.
      * @return the list of entities.
      */
-    public List<AppointmentDTO> findAllForOrganizationAndEmployee(Long organizationId, Long employeeId, LocalDateTime start, LocalDateTime end) {
+    public List<AppointmentDTO> findAllForOrganizationAndEmployee(@ShardKey Long organizationId, Long employeeId, LocalDateTime start, LocalDateTime end) {
         this.log.debug("Request to get all Appointments for Organization {}, Employee {}, between {} and {}", organizationId, employeeId, start, end);
-        return this.appointmentRepository.findAllByOrganizationIdAndEmployeeIdAndStartAtAfterAndStartAtBefore(organizationId, employeeId, start, end).stream().map(this.appointmentMapper::toDto).collect(Collectors.toList());
+        this.resultLimits.checkRange(start, end);
+        return this.resultLimits.checkRows(this.findAllOccurrencesForEmployee(organizationId, employeeId, start, end)).stream().map(this.appointmentMapper::toDto).collect(Collectors.toList());
     }
 
     /**
      * Get all the appointments for Organization.
+     * Recurring appointments are expanded into their occurrences within the range, the result is ordered by start.
+     * The range and the number of appointments are limited by {@link ResultLimits}.
      *
      * @param organizationId the id of the Organization.
      * @param start          start Date.
      * @param end            the end Date.
      * @return the list of entities.
      */
-    public List<AppointmentDTO> findAllForOrganization(Long organizationId, LocalDateTime start, LocalDateTime end) {
+    public List<AppointmentDTO> findAllForOrganization(@ShardKey Long organizationId, LocalDateTime start, LocalDateTime end) {
         this.log.debug("Request to get all Appointments for Organization {}, between {} and {}", organizationId, start, end);
-        return this.appointmentRepository.findAllByOrganizationIdAndStartAtAfterAndStartAtBefore(organizationId, start, end).stream().map(this.appointmentMapper::toDto).collect(Collectors.toList());
+        this.resultLimits.checkRange(start, end);
+        return this.resultLimits.checkRows(this.findAllOccurrencesForOrganization(organizationId, start, end)).stream().map(this.appointmentMapper::toDto).collect(Collectors.toList());
+    }
+
+    /**
+     * Get a page of the appointments for Organization, optionally only of one Employee, ordered by start and id.
+     * Recurring appointments are expanded into their occurrences, which carry the id of their series, at most one page per series.
+     * A page continues after the start and id of the last appointment of the previous page.
+     *
+     * @param organizationId the id of the Organization.
+     * @param employeeId     the id of the Employee, {@code null} for all employees.
+     * @param start          start Date, or the start of the last appointment of the previous page.
+     * @param afterId        the id of the last appointment of the previous page, {@code null} for the first page.
+     * @param end            the end Date.
+     * @param size           the maximum number of appointments.
+     * @return the appointments of the page.
+     */
+    @Transactional(readOnly = true)
+    public List<AppointmentDTO> findPage(@ShardKey Long organizationId, Long employeeId, LocalDateTime start, Long afterId, LocalDateTime end, int size) {
+        this.log.debug("Request to get a page of Appointments for Organization {}, Employee {}, between {}/{} and {}", organizationId, employeeId, start, afterId, end);
+        long after = afterId != null ? afterId : Long.MAX_VALUE;
+        PageRequest page = PageRequest.of(0, size);
+        List<Appointment> appointments = new ArrayList<>(employeeId != null
+                ? this.appointmentRepository.findPage(organizationId, employeeId, start, after, end, page)
+                : this.appointmentRepository.findPage(organizationId, start, after, end, page));
+        // occurrences starting after the last single appointment of a full page cannot be part of the page
+        LocalDateTime pageEnd = appointments.size() == size ? appointments.get(size - 1).getStartAt().plusMinutes(1) : end;
+        List<Appointment> series = employeeId != null
+                ? this.appointmentRepository.findAllSeriesByOrganizationIdAndEmployeeId(organizationId, employeeId, start.minusDays(1), pageEnd)
+                : this.appointmentRepository.findAllSeriesByOrganizationId(organizationId, start.minusDays(1), pageEnd);
+        for (Appointment appointment : series) {
+            // a series contributes at most size occurrences to the page, plus the one at the start of the page which may be skipped
+            for (Appointment occurrence : RecurrenceExpander.expandStarting(appointment, start, pageEnd, size + 1)) {
+                boolean afterPosition = occurrence.getStartAt().isAfter(start) || (occurrence.getStartAt().isEqual(start) && occurrence.getId() > after);
+                if (afterPosition && occurrence.getStartAt().isBefore(end)) {
+                    appointments.add(occurrence);
+                }
+            }
+        }
+        appointments.sort(PAGE_ORDER);
+        return appointments.stream().limit(size).map(this.appointmentMapper::toDto).collect(Collectors.toList());
+    }
+
+    /**
+     * Stream all the appointments for Organization to the given consumer.
+     * The rows are read through a database cursor and evicted from the persistence context after being handed over,
+     * so memory usage does not depend on the size of the range and a slow consumer throttles the database reads.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          start Date.
+     * @param end            the end Date.
+     * @param consumer       the consumer receiving the appointments one by one.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllForOrganization(@ShardKey Long organizationId, LocalDateTime start, LocalDateTime end, Consumer<AppointmentDTO> consumer) {
+        this.log.debug("Request to stream all Appointments for Organization {}, between {} and {}", organizationId, start, end);
+        try (Stream<Appointment> appointments = this.appointmentRepository.streamAllByOrganizationIdAndRecurrenceRuleIsNullAndStartAtAfterAndStartAtBefore(organizationId, start, end)) {
+            appointments.forEach(appointment -> {
+                consumer.accept(this.appointmentMapper.toDto(appointment));
+                this.entityManager.detach(appointment);
+            });
+        }
+        for (Appointment series : this.appointmentRepository.findAllSeriesByOrganizationId(organizationId, start.minusDays(1), end)) {
+            RecurrenceExpander.expand(series, start, end).forEach(occurrence -> consumer.accept(this.appointmentMapper.toDto(occurrence)));
+        }
+    }
+
+    /**
+     * Check whether the appointment exists.
+     *
+     * @param appointmentDTO the appointment, whose organization selects the shard.
+     * @return whether the entity exists.
+     */
+    @Transactional(readOnly = true)
+    public boolean exists(@ShardKey AppointmentDTO appointmentDTO) {
+        return this.appointmentRepository.existsById(appointmentDTO.getId());
     }
 
     /**
@@ -146,14 +460,54 @@ public class AppointmentService {
             event = this.createEvent(new Appointment().id(id), ApnmtEventType.appointmentDeleted);
         }
         this.sender.send(TopicConstants.APPOINTMENT_CHANGED_TOPIC, event);
+        maybe.ifPresent(appointment -> this.appointmentTombstoneRepository.save(new AppointmentTombstone()
+                .appointmentId(appointment.getId())
+                .organizationId(appointment.getOrganizationId())
+                .deletedDate(Instant.now())));
+        maybe.ifPresent(this.dailyOccupancyService::remove);
+        maybe.ifPresent(appointment -> this.organizationVersionService.appointmentsChanged(appointment.getOrganizationId()));
         this.appointmentRepository.deleteById(id);
     }
 
+    /**
+     * Cancel a single occurrence of a recurring appointment.
+     *
+     * @param id             the id of the recurring appointment.
+     * @param occurrenceDate the date of the occurrence to cancel.
+     * @return the updated recurring appointment, or empty if there is no recurring appointment with this id.
+     * @throws HttpError with status {@code 400 (Bad Request)} if the series has no occurrence on the date.
+     */
+    public Optional<AppointmentDTO> cancelOccurrence(Long id, LocalDate occurrenceDate) {
+        this.log.debug("Request to cancel occurrence {} of Appointment : {}", occurrenceDate, id);
+        return this.appointmentRepository.findById(id).filter(appointment -> appointment.getRecurrenceRule() != null).map(appointment -> {
+            if (!RecurrenceExpander.isOccurrence(appointment, occurrenceDate)) {
+                throw new HttpError(Status.BAD_REQUEST, "occurrence.invalid", "Appointment " + id + " has no occurrence on " + occurrenceDate);
+            }
+            appointment.getRecurrenceRule().addException(occurrenceDate);
+            // the exception lives in the recurrence rule, touch the appointment so that the change feed reports it
+            appointment.setLastModifiedDate(Instant.now());
+            this.organizationVersionService.appointmentsChanged(appointment.getOrganizationId());
+            this.sender.send(TopicConstants.APPOINTMENT_CHANGED_TOPIC, this.createEvent(appointment, ApnmtEventType.appointmentCreated));
+            return this.appointmentMapper.toDto(appointment);
+        });
+    }
+
     /**
      * Delete all appointments.
      */
+    @AllShards
     public void deleteAll() {
-        log.debug("Request to delete all Customers");
-        appointmentRepository.deleteAll();
+        this.log.debug("Request to delete all Appointments");
+        List<Appointment> appointments = this.appointmentRepository.findAll();
+        Instant deletedDate = Instant.now();
+        this.appointmentTombstoneRepository.saveAll(appointments.stream()
+                .map(appointment -> new AppointmentTombstone()
+                        .appointmentId(appointment.getId())
+                        .organizationId(appointment.getOrganizationId())
+                        .deletedDate(deletedDate))
+                .collect(Collectors.toList()));
+        this.appointmentRepository.deleteAll(appointments);
+        this.dailyOccupancyService.deleteAll();
+        this.organizationVersionService.allChanged();
     }
 }
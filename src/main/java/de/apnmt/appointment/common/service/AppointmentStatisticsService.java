@@ -0,0 +1,142 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.appointment.common.domain.Appointment;
+import de.apnmt.appointment.common.repository.AppointmentAggregate;
+import de.apnmt.appointment.common.repository.AppointmentRepository;
+import de.apnmt.appointment.common.service.dto.AppointmentStatisticsDTO;
+import de.apnmt.appointment.common.sharding.ShardKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Service computing the statistics of the appointments of an organization.
+ * <p>
+ * The single appointments are aggregated by the database with {@code GROUP BY}, so only one row per group is read.
+ * Recurring appointments are stored as one row per series and are expanded in memory before being added to the groups.
+ * An appointment belongs to the range if it starts within it, the range is evaluated with minute precision.
+ * The range is limited by {@link ResultLimits}, as the expansion of the series grows with it.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AppointmentStatisticsService {
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private static final Comparator<Map.Entry<Long, AppointmentStatisticsDTO>> GROUP_ORDER = Map.Entry.comparingByKey(Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Logger log = LoggerFactory.getLogger(AppointmentStatisticsService.class);
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final ResultLimits resultLimits;
+
+    public AppointmentStatisticsService(AppointmentRepository appointmentRepository, ResultLimits resultLimits) {
+        this.appointmentRepository = appointmentRepository;
+        this.resultLimits = resultLimits;
+    }
+
+    /**
+     * Get the statistics of the appointments of an Organization per employee.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          start Date.
+     * @param end            the end Date.
+     * @return the statistics ordered by employee id.
+     */
+    public List<AppointmentStatisticsDTO> findAllPerEmployee(@ShardKey Long organizationId, LocalDateTime start, LocalDateTime end) {
+        this.log.debug("Request to get statistics per Employee for Organization {}, between {} and {}", organizationId, start, end);
+        this.resultLimits.checkRange(start, end);
+        List<AppointmentAggregate> singles = this.appointmentRepository.aggregateByEmployee(organizationId, toEpochMinute(start), toEpochMinute(end));
+        return this.aggregate(organizationId, start, end, singles, Appointment::getEmployeeId, AppointmentStatisticsDTO::setEmployeeId);
+    }
+
+    /**
+     * Get the statistics of the appointments of an Organization per service.
+     * Appointments without service are reported last, without service id.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          start Date.
+     * @param end            the end Date.
+     * @return the statistics ordered by service id.
+     */
+    public List<AppointmentStatisticsDTO> findAllPerService(@ShardKey Long organizationId, LocalDateTime start, LocalDateTime end) {
+        this.log.debug("Request to get statistics per Service for Organization {}, between {} and {}", organizationId, start, end);
+        this.resultLimits.checkRange(start, end);
+        List<AppointmentAggregate> singles = this.appointmentRepository.aggregateByService(organizationId, toEpochMinute(start), toEpochMinute(end));
+        return this.aggregate(organizationId, start, end, singles,
+                appointment -> appointment.getService() != null ? appointment.getService().getId() : null,
+                AppointmentStatisticsDTO::setServiceId);
+    }
+
+    /**
+     * Get the statistics of the appointments of an Organization per day of their start.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          start Date.
+     * @param end            the end Date.
+     * @return the statistics ordered by date.
+     */
+    public List<AppointmentStatisticsDTO> findAllPerDay(@ShardKey Long organizationId, LocalDateTime start, LocalDateTime end) {
+        this.log.debug("Request to get statistics per day for Organization {}, between {} and {}", organizationId, start, end);
+        this.resultLimits.checkRange(start, end);
+        List<AppointmentAggregate> singles = this.appointmentRepository.aggregateByDay(organizationId, toEpochMinute(start), toEpochMinute(end));
+        return this.aggregate(organizationId, start, end, singles,
+                appointment -> Math.floorDiv(appointment.getStartMinute(), MINUTES_PER_DAY),
+                (statistics, epochDay) -> statistics.setDate(LocalDate.ofEpochDay(epochDay)));
+    }
+
+    private List<AppointmentStatisticsDTO> aggregate(
+            Long organizationId,
+            LocalDateTime start,
+            LocalDateTime end,
+            List<AppointmentAggregate> singles,
+            Function<Appointment, Long> groupKey,
+            BiConsumer<AppointmentStatisticsDTO, Long> setGroupKey
+    ) {
+        Map<Long, AppointmentStatisticsDTO> groups = new HashMap<>();
+        for (AppointmentAggregate single : singles) {
+            double revenue = single.getRevenue() != null ? single.getRevenue() : 0;
+            this.group(groups, single.getGroupKey(), setGroupKey).add(single.getAppointmentCount(), single.getBookedMinutes(), revenue);
+        }
+        for (Appointment series : this.appointmentRepository.findAllSeriesByOrganizationId(organizationId, start.minusDays(1), end)) {
+            double cost = series.getService() != null ? series.getService().getCost() : 0;
+            for (Appointment occurrence : RecurrenceExpander.expand(series, start, end)) {
+                if (!occurrence.getStartAt().isBefore(start)) {
+                    this.group(groups, groupKey.apply(occurrence), setGroupKey).add(1, occurrence.getEndMinute() - occurrence.getStartMinute(), cost);
+                }
+            }
+        }
+        List<Map.Entry<Long, AppointmentStatisticsDTO>> entries = new ArrayList<>(groups.entrySet());
+        entries.sort(GROUP_ORDER);
+        List<AppointmentStatisticsDTO> statistics = new ArrayList<>(entries.size());
+        entries.forEach(entry -> statistics.add(entry.getValue()));
+        return statistics;
+    }
+
+    private AppointmentStatisticsDTO group(Map<Long, AppointmentStatisticsDTO> groups, Long key, BiConsumer<AppointmentStatisticsDTO, Long> setGroupKey) {
+        return groups.computeIfAbsent(key, k -> {
+            AppointmentStatisticsDTO statistics = new AppointmentStatisticsDTO();
+            if (k != null) {
+                setGroupKey.accept(statistics, k);
+            }
+            return statistics;
+        });
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+}
@@ -0,0 +1,204 @@
+package de.apnmt.appointment.common.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.zalando.problem.Status;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for booking writes, applied before a transaction and a database connection are taken.
+ * <p>
+ * Every organization has its own token bucket, refilled with {@code application.booking-limits.rate-per-second} tokens
+ * up to {@code application.booking-limits.burst}, so a single flooding client only exhausts the budget of its own
+ * organization. Requests without a token are rejected with {@code 429 (Too Many Requests)}. A bucket that has been
+ * refilled completely carries no state and is dropped, and at most {@code application.booking-limits.max-organizations}
+ * buckets are kept, evicting the least recently used one, so unknown organization ids cannot grow the memory.
+ * Independently, at most {@code application.booking-limits.max-concurrent} writes of all organizations run at the same
+ * time, so they cannot take every connection of the shared pool; a write that does not get a permit within
+ * {@code application.booking-limits.max-wait} is rejected with {@code 503 (Service Unavailable)}.
+ * A rate or concurrency limit of {@code 0} disables the respective check, both checks are disabled by default.
+ * Rejections are counted in the {@code apnmt.booking.admission.rejected} metric.
+ */
+@Component
+public class BookingAdmissionControl {
+
+    private static final String REJECTED_METRIC = "apnmt.booking.admission.rejected";
+
+    private static final String IN_FLIGHT_METRIC = "apnmt.booking.admission.in.flight";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Logger log = LoggerFactory.getLogger(BookingAdmissionControl.class);
+
+    private final Map<Long, TokenBucket> buckets;
+
+    private final MeterRegistry meterRegistry;
+
+    private final double ratePerSecond;
+
+    private final double burst;
+
+    private final int maxConcurrent;
+
+    private final Semaphore permits;
+
+    private final Duration maxWait;
+
+    private final LongSupplier nanoTime;
+
+    @Autowired
+    public BookingAdmissionControl(
+            MeterRegistry meterRegistry,
+            @Value("${application.booking-limits.rate-per-second:0}") double ratePerSecond,
+            @Value("${application.booking-limits.burst:20}") int burst,
+            @Value("${application.booking-limits.max-organizations:10000}") int maxOrganizations,
+            @Value("${application.booking-limits.max-concurrent:0}") int maxConcurrent,
+            @Value("${application.booking-limits.max-wait:200ms}") Duration maxWait
+    ) {
+        this(meterRegistry, ratePerSecond, burst, maxOrganizations, maxConcurrent, maxWait, System::nanoTime);
+    }
+
+    BookingAdmissionControl(
+            MeterRegistry meterRegistry,
+            double ratePerSecond,
+            int burst,
+            int maxOrganizations,
+            int maxConcurrent,
+            Duration maxWait,
+            LongSupplier nanoTime
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.nanoTime = nanoTime;
+        this.buckets = new LinkedHashMap<Long, TokenBucket>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TokenBucket> eldest) {
+                return size() > maxOrganizations;
+            }
+        };
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.maxConcurrent = maxConcurrent;
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+        this.maxWait = maxWait;
+        if (this.permits != null) {
+            meterRegistry.gauge(IN_FLIGHT_METRIC, this.permits, semaphore -> maxConcurrent - semaphore.availablePermits());
+        }
+    }
+
+    /**
+     * Execute a booking write of an organization if it is admitted.
+     *
+     * @param organizationId the organization the write belongs to.
+     * @param work           the write.
+     * @param <T>            the result type.
+     * @return the result of the write.
+     * @throws AdmissionRejectedException if the organization exceeded its rate or no concurrency permit became available in time.
+     */
+    public <T> T execute(Long organizationId, Supplier<T> work) {
+        this.checkRate(organizationId);
+        if (this.permits == null) {
+            return work.get();
+        }
+        this.acquire();
+        try {
+            return work.get();
+        } finally {
+            this.permits.release();
+        }
+    }
+
+    private void checkRate(Long organizationId) {
+        if (this.ratePerSecond <= 0 || organizationId == null) {
+            return;
+        }
+        long now = this.nanoTime.getAsLong();
+        long waitNanos = this.bucket(organizationId, now).tryConsume(now, this.ratePerSecond, this.burst);
+        if (waitNanos > 0) {
+            this.meterRegistry.counter(REJECTED_METRIC, "reason", "rate").increment();
+            this.log.debug("Booking write of organization {} exceeds {} per second", organizationId, this.ratePerSecond);
+            throw new AdmissionRejectedException(Status.TOO_MANY_REQUESTS, "Too many booking requests for organization " + organizationId, Duration.ofNanos(waitNanos));
+        }
+    }
+
+    private TokenBucket bucket(Long organizationId, long now) {
+        synchronized (this.buckets) {
+            TokenBucket bucket = this.buckets.computeIfAbsent(organizationId, id -> new TokenBucket(this.burst, now));
+            // the buckets are in the order of their last use, drop the idle ones from the front until one is still refilling
+            Iterator<TokenBucket> eldest = this.buckets.values().iterator();
+            while (eldest.hasNext()) {
+                TokenBucket candidate = eldest.next();
+                if (candidate == bucket || !candidate.isFull(now, this.ratePerSecond, this.burst)) {
+                    break;
+                }
+                eldest.remove();
+            }
+            return bucket;
+        }
+    }
+
+    int getBucketCount() {
+        synchronized (this.buckets) {
+            return this.buckets.size();
+        }
+    }
+
+    private void acquire() {
+        boolean acquired;
+        try {
+            acquired = this.permits.tryAcquire(this.maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            this.meterRegistry.counter(REJECTED_METRIC, "reason", "concurrency").increment();
+            this.log.warn("Booking write rejected, {} writes are already running", this.maxConcurrent);
+            throw new AdmissionRejectedException(Status.SERVICE_UNAVAILABLE, "Too many concurrent booking requests", Duration.ofSeconds(1));
+        }
+    }
+
+    private static final class TokenBucket {
+
+        private double tokens;
+
+        private long refilledAt;
+
+        private TokenBucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        /**
+         * @return {@code 0} if a token was taken, otherwise the nanoseconds until the next token is available.
+         */
+        private synchronized long tryConsume(long now, double ratePerSecond, double capacity) {
+            this.tokens = this.tokensAt(now, ratePerSecond, capacity);
+            this.refilledAt = Math.max(this.refilledAt, now);
+            if (this.tokens >= 1) {
+                this.tokens--;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - this.tokens) * NANOS_PER_SECOND / ratePerSecond));
+        }
+
+        private synchronized boolean isFull(long now, double ratePerSecond, double capacity) {
+            return this.tokensAt(now, ratePerSecond, capacity) >= capacity;
+        }
+
+        private double tokensAt(long now, double ratePerSecond, double capacity) {
+            return Math.min(capacity, this.tokens + Math.max(0, now - this.refilledAt) * ratePerSecond / NANOS_PER_SECOND);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package de.apnmt.appointment.common.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work inserting rows identified by a unique key, e.g. the customer of a mail or the occupancy of a day,
+ * in its own transaction and repeats it a bounded number of times when a concurrent transaction has inserted a row with
+ * the same key in the meantime. The repeated work finds the row of the other transaction and uses it instead.
+ * <p>
+ * The rows are inserted in the transaction of the work, so that they are rolled back with it and the work never needs a
+ * second connection. On MySQL, the locking update finding no row locks the gap the row is inserted into, so concurrent
+ * inserts of the same key deadlock instead of violating the unique index; the transaction rolled back by the database is
+ * repeated the same way. Every conflict is counted in the {@code apnmt.concurrent.insert.conflicts} metric.
+ */
+@Component
+public class ConcurrentInsertRetry {
+
+    private static final String CONFLICT_METRIC = "apnmt.concurrent.insert.conflicts";
+
+    /**
+     * SQL state of a violated unique constraint on PostgreSQL and H2.
+     */
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    /**
+     * Error code of a duplicate key on MySQL and MariaDB, which report all integrity violations with the SQL state {@code 23000}.
+     */
+    private static final int MYSQL_DUPLICATE_KEY = 1062;
+
+    private final Logger log = LoggerFactory.getLogger(ConcurrentInsertRetry.class);
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxAttempts;
+
+    public ConcurrentInsertRetry(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry, @Value("${application.concurrent-insert.max-attempts:3}") int maxAttempts) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * Execute the unit of work, retrying when it conflicts with a concurrent insert.
+     * The work must look up the rows it inserts, as every attempt runs in a new transaction.
+     *
+     * @param entityName the name of the written entity, used as metric tag.
+     * @param work       the unit of work.
+     * @param <T>        the result type.
+     * @return the result of the first successful attempt.
+     * @throws DataIntegrityViolationException if the last attempt still conflicts, or the work violates another constraint.
+     * @throws PessimisticLockingFailureException if the last attempt still deadlocks.
+     */
+    public <T> T execute(String entityName, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return this.transactionTemplate.execute(status -> work.get());
+            } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+                if (e instanceof DataIntegrityViolationException && !isUniqueViolation(e)) {
+                    throw e;
+                }
+                boolean exhausted = attempt >= this.maxAttempts;
+                this.meterRegistry.counter(CONFLICT_METRIC, "entity", entityName, "outcome", exhausted ? "failed" : "retried").increment();
+                if (exhausted) {
+                    this.log.warn("Concurrent insert conflict on {} not resolved after {} attempts", entityName, attempt);
+                    throw e;
+                }
+                this.log.debug("Concurrent insert conflict on {} in attempt {} of {}, retrying", entityName, attempt, this.maxAttempts);
+            }
+        }
+    }
+
+    private static boolean isUniqueViolation(DataAccessException e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        if (!(cause instanceof SQLException)) {
+            return false;
+        }
+        SQLException sqlException = (SQLException) cause;
+        return UNIQUE_VIOLATION.equals(sqlException.getSQLState()) || sqlException.getErrorCode() == MYSQL_DUPLICATE_KEY;
+    }
+}
@@ -0,0 +1,132 @@
+package de.apnmt.appointment.common.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming CSV reader, reading one record at a time.
+ * <p>
+ * Fields are separated by {@code ;} or {@code ,}, whichever the first line uses, and may be quoted with {@code "},
+ * a quote inside a quoted field being doubled. Quoted fields may span several lines.
+ * <p>
+ * Fields and records are limited in length, so that an unterminated quote does not buffer the rest of the input.
+ */
+final class CsvReader implements Closeable {
+
+    private final BufferedReader reader;
+
+    private final int maxFieldLength;
+
+    private final int maxRecordLength;
+
+    private char separator = ',';
+
+    private long lineNumber;
+
+    CsvReader(Reader reader, int maxFieldLength, int maxRecordLength) {
+        this.reader = new BufferedReader(reader);
+        this.maxFieldLength = maxFieldLength;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Read the header record and detect the separator from it.
+     *
+     * @return the header fields, {@code null} if the input is empty.
+     * @throws IOException if the input cannot be read or the first line exceeds the maximum record length.
+     */
+    List<String> readHeader() throws IOException {
+        this.reader.mark(this.maxRecordLength + 1);
+        boolean semicolon = false;
+        int length = 0;
+        int c;
+        while ((c = this.reader.read()) != -1 && c != '\n') {
+            if (++length > this.maxRecordLength) {
+                throw new IOException("Header line exceeds " + this.maxRecordLength + " characters");
+            }
+            semicolon |= c == ';';
+        }
+        if (c == -1 && length == 0) {
+            return null;
+        }
+        this.separator = semicolon ? ';' : ',';
+        this.reader.reset();
+        List<String> header = this.readRecord();
+        if (!header.isEmpty() && header.get(0).startsWith("\uFEFF")) {
+            header.set(0, header.get(0).substring(1));
+        }
+        return header;
+    }
+
+    /**
+     * Read the next record, skipping empty lines.
+     *
+     * @return the fields of the record, {@code null} at the end of the input.
+     * @throws IOException if the input cannot be read, ends within a quoted field or a field or the record is too long.
+     */
+    List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        long startLine = this.lineNumber + 1;
+        int length = 0;
+        int c;
+        while ((c = this.reader.read()) != -1) {
+            if (++length > this.maxRecordLength) {
+                throw new IOException("Record starting in line " + startLine + " exceeds " + this.maxRecordLength + " characters" + (quoted ? ", probably due to an unterminated quote" : ""));
+            }
+            if (quoted) {
+                if (c == '"') {
+                    this.reader.mark(1);
+                    if (this.reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        this.reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        this.lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                empty = false;
+            } else if (c == this.separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+                empty = false;
+            } else if (c == '\n') {
+                this.lineNumber++;
+                if (!empty || field.length() > 0) {
+                    break;
+                }
+            } else if (c != '\r') {
+                field.append((char) c);
+                empty = false;
+            }
+            if (field.length() > this.maxFieldLength) {
+                throw new IOException("Field in record starting in line " + startLine + " exceeds " + this.maxFieldLength + " characters" + (quoted ? ", probably due to an unterminated quote" : ""));
+            }
+        }
+        if (quoted) {
+            throw new IOException("Unterminated quoted field in line " + this.lineNumber);
+        }
+        if (c == -1 && empty && field.length() == 0) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
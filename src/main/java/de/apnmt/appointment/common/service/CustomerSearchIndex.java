@@ -0,0 +1,381 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.appointment.common.repository.CustomerRepository;
+import de.apnmt.appointment.common.service.dto.CustomerDTO;
+import de.apnmt.appointment.common.service.mapper.CustomerMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * In-memory search index over the customers of an organization, supporting prefix and typo tolerant matching
+ * of {@code lastName}, {@code firstName}, {@code mail} and {@code phone}.
+ * <p>
+ * The index of an organization is built from the database on its first search, kept in sync with the changes made through
+ * {@link CustomerService} and rebuilt after {@code application.customer-search.max-age} to pick up changes made on other nodes.
+ * At most {@code application.customer-search.max-organizations} indexes are kept, the least recently searched ones are dropped.
+ * An index is built by one thread at a time; concurrent searches wait for it, or use the previous index while it is rebuilt,
+ * and changes committed during a build are applied to the new index as well.
+ * <p>
+ * Candidates are found through the trigrams of the words, padded at the start so that short prefixes with a typo still share
+ * the leading trigrams, and then scored per query token: prefix match, infix match or prefix match within an edit distance.
+ */
+@Component
+public class CustomerSearchIndex {
+
+    private static final int PREFIX_SCORE = 3;
+
+    private static final int INFIX_SCORE = 2;
+
+    private static final int FUZZY_SCORE = 1;
+
+    private final Logger log = LoggerFactory.getLogger(CustomerSearchIndex.class);
+
+    private final CustomerRepository customerRepository;
+
+    private final CustomerMapper customerMapper;
+
+    private final Duration maxAge;
+
+    private final Map<Long, OrganizationIndex> indexes;
+
+    private final Map<Long, Build> builds = new HashMap<>();
+
+    public CustomerSearchIndex(
+            CustomerRepository customerRepository,
+            CustomerMapper customerMapper,
+            @Value("${application.customer-search.max-age:10m}") Duration maxAge,
+            @Value("${application.customer-search.max-organizations:100}") int maxOrganizations
+    ) {
+        this.customerRepository = customerRepository;
+        this.customerMapper = customerMapper;
+        this.maxAge = maxAge;
+        this.indexes = new LinkedHashMap<Long, OrganizationIndex>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, OrganizationIndex> eldest) {
+                return size() > maxOrganizations;
+            }
+        };
+    }
+
+    /**
+     * Search the customers of an organization, best matches first.
+     *
+     * @param organizationId the organization id.
+     * @param query          the search terms.
+     * @param pageable       the pagination information.
+     * @return the page of matching customers.
+     */
+    public Page<CustomerDTO> search(Long organizationId, String query, Pageable pageable) {
+        List<String> tokens = words(query);
+        if (tokens.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        List<CustomerDTO> matches = this.getIndex(organizationId).search(tokens);
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+    }
+
+    /**
+     * Add or replace a customer in the index of its organization once the current transaction has committed.
+     *
+     * @param customer the saved customer.
+     */
+    public void update(CustomerDTO customer) {
+        this.afterCommit(() -> this.apply(customer.getOrganizationId(), index -> index.put(customer)));
+    }
+
+    /**
+     * Remove a customer from the index of its organization once the current transaction has committed.
+     *
+     * @param organizationId the organization id.
+     * @param id             the id of the deleted customer.
+     */
+    public void remove(Long organizationId, Long id) {
+        this.afterCommit(() -> this.apply(organizationId, index -> index.remove(id)));
+    }
+
+    /**
+     * Drop all indexes, they are rebuilt on the next search.
+     */
+    public void clear() {
+        this.afterCommit(() -> {
+            synchronized (this.indexes) {
+                this.indexes.clear();
+                this.builds.values().forEach(build -> build.discarded = true);
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Apply a committed change to the loaded index of an organization and to the index being built for it.
+     */
+    private void apply(Long organizationId, Consumer<OrganizationIndex> change) {
+        synchronized (this.indexes) {
+            OrganizationIndex index = this.indexes.get(organizationId);
+            if (index != null) {
+                change.accept(index);
+            }
+            Build build = this.builds.get(organizationId);
+            if (build != null) {
+                build.changes.add(change);
+            }
+        }
+    }
+
+    private OrganizationIndex getIndex(Long organizationId) {
+        OrganizationIndex index;
+        Build build;
+        boolean building;
+        synchronized (this.indexes) {
+            index = this.indexes.get(organizationId);
+            if (index != null && index.builtAt.plus(this.maxAge).isAfter(Instant.now())) {
+                return index;
+            }
+            build = this.builds.get(organizationId);
+            building = build != null;
+            if (!building) {
+                build = new Build();
+                this.builds.put(organizationId, build);
+            }
+        }
+        if (building) {
+            return index != null ? index : this.await(build);
+        }
+        try {
+            long started = System.currentTimeMillis();
+            OrganizationIndex built = new OrganizationIndex();
+            this.customerRepository.findAllByOrganizationId(organizationId).stream().map(this.customerMapper::toDto).forEach(built::put);
+            synchronized (this.indexes) {
+                build.changes.forEach(change -> change.accept(built));
+                this.builds.remove(organizationId);
+                if (!build.discarded) {
+                    this.indexes.put(organizationId, built);
+                }
+            }
+            this.log.debug("Built customer search index for Organization {} with {} customers in {} ms", organizationId, built.customers.size(), System.currentTimeMillis() - started);
+            build.result.complete(built);
+            return built;
+        } catch (RuntimeException e) {
+            synchronized (this.indexes) {
+                this.builds.remove(organizationId);
+            }
+            build.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private OrganizationIndex await(Build build) {
+        try {
+            return build.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text != null) {
+            for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+
+    private static Set<String> trigrams(String word) {
+        String padded = "  " + word;
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static int score(String token, List<String> words) {
+        int best = 0;
+        int maxDistance = token.length() < 3 ? 0 : token.length() <= 5 ? 1 : 2;
+        for (String word : words) {
+            if (word.startsWith(token)) {
+                return PREFIX_SCORE;
+            }
+            if (word.contains(token)) {
+                best = INFIX_SCORE;
+            } else if (best < FUZZY_SCORE && maxDistance > 0 && distance(token, word.substring(0, Math.min(word.length(), token.length() + 1)), maxDistance) <= maxDistance) {
+                best = FUZZY_SCORE;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Levenshtein distance between a token and a word prefix, giving up as soon as it exceeds the limit.
+     * A missing last character of the prefix is free, so that the prefix can be one character shorter or longer than the token.
+     */
+    private static int distance(String token, String prefix, int limit) {
+        int[] previous = new int[prefix.length() + 1];
+        int[] current = new int[prefix.length() + 1];
+        for (int j = 0; j <= prefix.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= token.length(); i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            for (int j = 1; j <= prefix.length(); j++) {
+                int cost = token.charAt(i - 1) == prefix.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > limit) {
+                return rowMinimum;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[prefix.length()], prefix.isEmpty() ? token.length() : previous[prefix.length() - 1]);
+    }
+
+    private static class OrganizationIndex {
+
+        private final Instant builtAt = Instant.now();
+
+        private final Map<Long, Entry> customers = new HashMap<>();
+
+        private final Map<String, Set<Long>> postings = new HashMap<>();
+
+        synchronized void put(CustomerDTO customer) {
+            this.remove(customer.getId());
+            Entry entry = new Entry(customer);
+            this.customers.put(customer.getId(), entry);
+            for (String trigram : entry.trigrams) {
+                this.postings.computeIfAbsent(trigram, key -> new HashSet<>()).add(customer.getId());
+            }
+        }
+
+        synchronized void remove(Long id) {
+            Entry entry = this.customers.remove(id);
+            if (entry != null) {
+                for (String trigram : entry.trigrams) {
+                    Set<Long> ids = this.postings.get(trigram);
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        this.postings.remove(trigram);
+                    }
+                }
+            }
+        }
+
+        synchronized List<CustomerDTO> search(List<String> tokens) {
+            Set<Long> candidates = new HashSet<>();
+            for (String token : tokens) {
+                for (String trigram : trigrams(token)) {
+                    candidates.addAll(this.postings.getOrDefault(trigram, Collections.emptySet()));
+                }
+            }
+            List<Match> matches = new ArrayList<>();
+            for (Long id : candidates) {
+                Entry entry = this.customers.get(id);
+                int total = 0;
+                for (String token : tokens) {
+                    int score = score(token, entry.words);
+                    if (score == 0) {
+                        total = 0;
+                        break;
+                    }
+                    total += score;
+                }
+                if (total > 0) {
+                    matches.add(new Match(entry.customer, total));
+                }
+            }
+            matches.sort(Comparator.comparingInt((Match match) -> match.score).reversed()
+                    .thenComparing(match -> match.customer.getLastName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(match -> match.customer.getFirstName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(match -> match.customer.getId()));
+            List<CustomerDTO> result = new ArrayList<>(matches.size());
+            matches.forEach(match -> result.add(match.customer));
+            return result;
+        }
+    }
+
+    /**
+     * An index being built, collecting the changes committed in the meantime.
+     */
+    private static class Build {
+
+        private final CompletableFuture<OrganizationIndex> result = new CompletableFuture<>();
+
+        private final List<Consumer<OrganizationIndex>> changes = new ArrayList<>();
+
+        private boolean discarded;
+    }
+
+    private static class Entry {
+
+        private final CustomerDTO customer;
+
+        private final List<String> words = new ArrayList<>();
+
+        private final Set<String> trigrams = new HashSet<>();
+
+        Entry(CustomerDTO customer) {
+            this.customer = customer;
+            this.words.addAll(words(customer.getLastName()));
+            this.words.addAll(words(customer.getFirstName()));
+            this.words.addAll(words(customer.getMail()));
+            if (customer.getMail() != null) {
+                this.words.add(customer.getMail().toLowerCase(Locale.ROOT));
+            }
+            String phoneDigits = customer.getPhone() == null ? "" : customer.getPhone().replaceAll("[^0-9]", "");
+            if (!phoneDigits.isEmpty()) {
+                this.words.add(phoneDigits);
+            }
+            this.words.forEach(word -> this.trigrams.addAll(trigrams(word)));
+        }
+    }
+
+    private static class Match {
+
+        private final CustomerDTO customer;
+
+        private final int score;
+
+        Match(CustomerDTO customer, int score) {
+            this.customer = customer;
+            this.score = score;
+        }
+    }
+}
@@ -4,14 +4,23 @@ import de.apnmt.appointment.common.domain.Customer;
 import de.apnmt.appointment.common.repository.CustomerRepository;
 import de.apnmt.appointment.common.service.dto.CustomerDTO;
 import de.apnmt.appointment.common.service.mapper.CustomerMapper;
+import de.apnmt.appointment.common.sharding.AllShards;
+import de.apnmt.appointment.common.sharding.ShardKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -28,44 +37,183 @@ public class CustomerService {
 
     private final CustomerMapper customerMapper;
 
-    public CustomerService(CustomerRepository customerRepository, CustomerMapper customerMapper) {
+    private final OptimisticLockingRetry optimisticLockingRetry;
+
+    private final CustomerSearchIndex customerSearchIndex;
+
+    private final ResultLimits resultLimits;
+
+    private final OrganizationVersionService organizationVersionService;
+
+    private final ConcurrentInsertRetry concurrentInsertRetry;
+
+    /**
+     * Recently resolved customer ids by organization id and normalized mail.
+     */
+    private final Map<String, Long> lookupCache;
+
+    public CustomerService(
+        CustomerRepository customerRepository,
+        CustomerMapper customerMapper,
+        OptimisticLockingRetry optimisticLockingRetry,
+        CustomerSearchIndex customerSearchIndex,
+        @Value("${application.customer-deduplication.cache-size:10000}") int lookupCacheSize,
+        ResultLimits resultLimits,
+        OrganizationVersionService organizationVersionService,
+        ConcurrentInsertRetry concurrentInsertRetry
+    ) {
         this.customerRepository = customerRepository;
         this.customerMapper = customerMapper;
+        this.optimisticLockingRetry = optimisticLockingRetry;
+        this.customerSearchIndex = customerSearchIndex;
+        this.resultLimits = resultLimits;
+        this.organizationVersionService = organizationVersionService;
+        this.concurrentInsertRetry = concurrentInsertRetry;
+        this.lookupCache =
+            new LinkedHashMap<String, Long>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > lookupCacheSize;
+                }
+            };
     }
 
     /**
      * Save a customer.
+     * A new customer whose mail is already known in its organization is not inserted; the existing customer is returned unchanged.
+     * The save runs in its own transaction, which is repeated if a concurrent request inserts the same mail first.
      *
      * @param customerDTO the entity to save.
      * @return the persisted entity.
      */
-    public CustomerDTO save(CustomerDTO customerDTO) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CustomerDTO save(@ShardKey CustomerDTO customerDTO) {
         log.debug("Request to save Customer : {}", customerDTO);
+        return concurrentInsertRetry.execute("customer", () -> saveInTransaction(customerDTO));
+    }
+
+    private CustomerDTO saveInTransaction(CustomerDTO customerDTO) {
         Customer customer = customerMapper.toEntity(customerDTO);
+        if (customer.getId() == null && customer.getOrganizationId() != null && customer.getMail() != null) {
+            return customerMapper.toDto(findOrInsert(customer));
+        }
+        if (customer.getId() != null) {
+            // full updates overwrite the current state, so they are applied on top of the current version
+            customer.setVersion(customerRepository.findById(customer.getId()).map(Customer::getVersion).orElse(0L));
+        }
         customer = customerRepository.save(customer);
-        return customerMapper.toDto(customer);
+        organizationVersionService.customersChanged(customer.getOrganizationId());
+        CustomerDTO result = customerMapper.toDto(customer);
+        customerSearchIndex.update(result);
+        return result;
+    }
+
+    /**
+     * Resolve the customer of an appointment to a managed entity, so that it is referenced instead of inserted again.
+     * A customer with an id is referenced as is, a new customer is replaced by the existing customer with the same mail
+     * in its organization if there is one, or inserted, in both cases without changing the existing customer.
+     * The customer is inserted in the current transaction, which has to be run by the {@link ConcurrentInsertRetry}.
+     *
+     * @param customer the customer of an appointment, may be {@code null}.
+     * @return the existing or inserted customer, or the given customer if it has no mail to identify it.
+     */
+    public Customer resolve(Customer customer) {
+        if (customer == null) {
+            return null;
+        }
+        if (customer.getId() != null) {
+            return customerRepository.getOne(customer.getId());
+        }
+        if (customer.getOrganizationId() == null || customer.getMail() == null) {
+            return customer;
+        }
+        return findOrInsert(customer);
+    }
+
+    /**
+     * Get the existing customer with the mail of a new customer, or insert the new customer.
+     * <p>
+     * The customer is inserted in the current transaction, so that it is rolled back together with a failing booking.
+     * A concurrent insert of the same mail is rejected by the unique index {@code ux_customer__organization_id_normalized_mail},
+     * the {@link ConcurrentInsertRetry} then repeats the transaction, which finds the customer of the other request.
+     */
+    private Customer findOrInsert(Customer customer) {
+        Optional<Customer> existing = findExisting(customer.getOrganizationId(), customer.getMail());
+        if (existing.isPresent()) {
+            log.debug("Reusing existing Customer {} for {}", existing.get().getId(), customer);
+            return existing.get();
+        }
+        Customer inserted = customerRepository.saveAndFlush(customer);
+        organizationVersionService.customersChanged(inserted.getOrganizationId());
+        CustomerDTO indexed = customerMapper.toDto(inserted);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                customerSearchIndex.update(indexed);
+            }
+        });
+        return inserted;
+    }
+
+    private Optional<Customer> findExisting(Long organizationId, String mail) {
+        if (organizationId == null || mail == null) {
+            return Optional.empty();
+        }
+        String normalizedMail = Customer.normalizeMail(mail);
+        String key = organizationId + ":" + normalizedMail;
+        Long cachedId;
+        synchronized (lookupCache) {
+            cachedId = lookupCache.get(key);
+        }
+        if (cachedId != null) {
+            // the primary key lookup verifies the cached entry, which may be outdated by changes made on other nodes
+            Optional<Customer> cached = customerRepository
+                .findById(cachedId)
+                .filter(customer -> organizationId.equals(customer.getOrganizationId()) && normalizedMail.equals(Customer.normalizeMail(customer.getMail())));
+            if (cached.isPresent()) {
+                return cached;
+            }
+        }
+        Optional<Customer> existing = customerRepository.findFirstByOrganizationIdAndNormalizedMail(organizationId, normalizedMail);
+        synchronized (lookupCache) {
+            if (existing.isPresent()) {
+                lookupCache.put(key, existing.get().getId());
+            } else {
+                lookupCache.remove(key);
+            }
+        }
+        return existing;
     }
 
     /**
      * Partially update a customer.
+     * The update runs in its own transaction and is re-applied on the current state if a concurrent update wins the race.
      *
      * @param customerDTO the entity to update partially.
      * @return the persisted entity.
      */
-    public Optional<CustomerDTO> partialUpdate(CustomerDTO customerDTO) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<CustomerDTO> partialUpdate(@ShardKey CustomerDTO customerDTO) {
         log.debug("Request to partially update Customer : {}", customerDTO);
 
-        return customerRepository
-            .findById(customerDTO.getId())
-            .map(
-                existingCustomer -> {
-                    customerMapper.partialUpdate(existingCustomer, customerDTO);
+        Optional<CustomerDTO> result = optimisticLockingRetry.execute(
+            "customer",
+            () ->
+                customerRepository
+                    .findById(customerDTO.getId())
+                    .map(
+                        existingCustomer -> {
+                            customerMapper.partialUpdate(existingCustomer, customerDTO);
+                            organizationVersionService.customersChanged(existingCustomer.getOrganizationId());
 
-                    return existingCustomer;
-                }
-            )
-            .map(customerRepository::save)
-            .map(customerMapper::toDto);
+                            return existingCustomer;
+                        }
+                    )
+                    .map(customerRepository::save)
+                    .map(customerMapper::toDto)
+        );
+        result.ifPresent(customerSearchIndex::update);
+        return result;
     }
 
     /**
@@ -82,14 +230,70 @@ public class CustomerService {
 
     /**
      * Get all the customers by organizationId.
+     * Organizations with more customers than {@code application.limits.max-rows} have to use the paged variant.
+     *
+     * @param organizationId the organization id.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerDTO> findAll(@ShardKey Long organizationId) {
+        log.debug("Request to get all Customers for Organization {}", organizationId);
+        List<Customer> customers = resultLimits.checkRows(customerRepository.findAllByOrganizationIdOrderById(organizationId, resultLimits.firstRows()));
+        return customers.stream().map(customerMapper::toDto).collect(Collectors.toList());
+    }
+
+    /**
+     * Get a page of the customers by organizationId.
+     *
+     * @param organizationId the organization id.
+     * @param pageable       the pagination information.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<CustomerDTO> findAll(@ShardKey Long organizationId, Pageable pageable) {
+        log.debug("Request to get a page of Customers for Organization {}", organizationId);
+        return customerRepository.findAllByOrganizationId(organizationId, pageable).map(customerMapper::toDto);
+    }
+
+    /**
+     * Get the customers of an organization modified after the given date.
      *
      * @param organizationId the organization id.
+     * @param modifiedSince  the date after which the entities were created or modified.
      * @return the list of entities.
      */
     @Transactional(readOnly = true)
-    public List<CustomerDTO> findAll(Long organizationId) {
-        this.log.debug("Request to get all Services for Organization {}", organizationId);
-        return this.customerRepository.findAllByOrganizationId(organizationId).stream().map(this.customerMapper::toDto).collect(Collectors.toList());
+    public List<CustomerDTO> findAllModifiedSince(@ShardKey Long organizationId, Instant modifiedSince) {
+        log.debug("Request to get all Customers for Organization {} modified since {}", organizationId, modifiedSince);
+        return resultLimits.checkRows(customerRepository.findAllByOrganizationIdAndLastModifiedDateAfter(organizationId, modifiedSince, resultLimits.firstRows())).stream()
+                .map(customerMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Search the customers of an organization by last name, first name, mail and phone.
+     * The search terms may be prefixes and may contain typos, the best matches come first.
+     *
+     * @param organizationId the organization id.
+     * @param query          the search terms.
+     * @param pageable       the pagination information.
+     * @return the page of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<CustomerDTO> search(@ShardKey Long organizationId, String query, Pageable pageable) {
+        log.debug("Request to search Customers for Organization {} : {}", organizationId, query);
+        return customerSearchIndex.search(organizationId, query, pageable);
+    }
+
+    /**
+     * Check whether the customer exists.
+     *
+     * @param customerDTO the customer, whose organization selects the shard.
+     * @return whether the entity exists.
+     */
+    @Transactional(readOnly = true)
+    public boolean exists(@ShardKey CustomerDTO customerDTO) {
+        return customerRepository.existsById(customerDTO.getId());
     }
 
     /**
@@ -111,14 +315,24 @@ public class CustomerService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Customer : {}", id);
+        customerRepository.findById(id).ifPresent(customer -> {
+            customerSearchIndex.remove(customer.getOrganizationId(), id);
+            organizationVersionService.customersChanged(customer.getOrganizationId());
+        });
         customerRepository.deleteById(id);
     }
 
     /**
      * Delete all customers.
      */
+    @AllShards
     public void deleteAll() {
         log.debug("Request to delete all Customers");
         customerRepository.deleteAll();
+        organizationVersionService.allChanged();
+        customerSearchIndex.clear();
+        synchronized (lookupCache) {
+            lookupCache.clear();
+        }
     }
 }
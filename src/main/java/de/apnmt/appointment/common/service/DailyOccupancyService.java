@@ -0,0 +1,168 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.appointment.common.domain.Appointment;
+import de.apnmt.appointment.common.domain.DailyOccupancy;
+import de.apnmt.appointment.common.repository.AppointmentRepository;
+import de.apnmt.appointment.common.repository.DailyOccupancyAggregate;
+import de.apnmt.appointment.common.repository.DailyOccupancyRepository;
+import de.apnmt.appointment.common.service.dto.DailyOccupancyDTO;
+import de.apnmt.appointment.common.sharding.AllShards;
+import de.apnmt.appointment.common.sharding.ShardKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Service maintaining the {@link DailyOccupancy} of the employees.
+ * <p>
+ * The occupancy is updated in the transaction saving or deleting a single appointment, by incrementing the row of the
+ * day in place. The first booking of a day inserts the row in the same transaction, so no second connection is needed;
+ * when concurrent first bookings of a day insert it both, the {@link ConcurrentInsertRetry} repeats the losing booking,
+ * which then increments the row of the other one. Recurring appointments are not part of the occupancy, as their series have no end. An appointment
+ * counts for the day it starts on. The days can be rebuilt from the appointments at any time, e.g. after a bulk change
+ * in the database, and the scheduled repair job {@code application.occupancy.repair-cron} rebuilds the days from
+ * yesterday until {@code application.occupancy.repair-days} ahead for all organizations.
+ */
+@Service
+@Transactional
+public class DailyOccupancyService {
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private final Logger log = LoggerFactory.getLogger(DailyOccupancyService.class);
+
+    private final DailyOccupancyRepository dailyOccupancyRepository;
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final int repairDays;
+
+    public DailyOccupancyService(
+            DailyOccupancyRepository dailyOccupancyRepository,
+            AppointmentRepository appointmentRepository,
+            @Value("${application.occupancy.repair-days:90}") int repairDays
+    ) {
+        this.dailyOccupancyRepository = dailyOccupancyRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.repairDays = repairDays;
+    }
+
+    /**
+     * Add a saved appointment to the occupancy of its day. The transaction must be run by the {@link ConcurrentInsertRetry},
+     * as it inserts the row of the day if there is none.
+     *
+     * @param appointment the appointment.
+     */
+    public void add(Appointment appointment) {
+        this.apply(appointment, 1);
+    }
+
+    /**
+     * Remove an updated or deleted appointment, in its persisted state, from the occupancy of its day.
+     *
+     * @param appointment the appointment.
+     */
+    public void remove(Appointment appointment) {
+        this.apply(appointment, -1);
+    }
+
+    private void apply(Appointment appointment, int sign) {
+        if (appointment.getRecurrenceRule() != null) {
+            return;
+        }
+        long epochDay = Math.floorDiv(appointment.getStartMinute(), MINUTES_PER_DAY);
+        long bookedMinutes = appointment.getEndMinute() - appointment.getStartMinute();
+        if (this.dailyOccupancyRepository.increment(appointment.getOrganizationId(), appointment.getEmployeeId(), epochDay, sign, sign * bookedMinutes) > 0) {
+            return;
+        }
+        if (sign < 0) {
+            // the day was deleted by a concurrent rebuild, which recreates it from the appointments
+            this.log.debug("No occupancy of Employee {} on day {} to remove Appointment {} from", appointment.getEmployeeId(), epochDay, appointment.getId());
+            return;
+        }
+        // a concurrent insert of the day fails the flush on the unique index, the booking is then repeated and increments it
+        this.dailyOccupancyRepository.saveAndFlush(new DailyOccupancy()
+                .organizationId(appointment.getOrganizationId())
+                .employeeId(appointment.getEmployeeId())
+                .epochDay(epochDay)
+                .appointments(1)
+                .bookedMinutes(bookedMinutes));
+    }
+
+    /**
+     * Get the occupancy of the employees of an Organization.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          the first day.
+     * @param end            the day after the last day.
+     * @return the occupancy ordered by day and employee, days without appointments are left out.
+     */
+    @Transactional(readOnly = true)
+    public List<DailyOccupancyDTO> findAll(@ShardKey Long organizationId, LocalDate start, LocalDate end) {
+        this.log.debug("Request to get DailyOccupancy for Organization {}, between {} and {}", organizationId, start, end);
+        return this.dailyOccupancyRepository.findAllByOrganizationIdAndEpochDayGreaterThanEqualAndEpochDayLessThanOrderByEpochDayAscEmployeeIdAsc(organizationId, start.toEpochDay(), end.toEpochDay())
+                .stream()
+                .filter(occupancy -> occupancy.getAppointments() > 0)
+                .map(occupancy -> new DailyOccupancyDTO(occupancy.getEmployeeId(), LocalDate.ofEpochDay(occupancy.getEpochDay()), occupancy.getAppointments(), occupancy.getBookedMinutes()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Rebuild the occupancy of an Organization from its appointments.
+     * Appointments saved concurrently may be missed, the days should be rebuilt while the organization is idle.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          the first day.
+     * @param end            the day after the last day.
+     * @return the number of rebuilt rows.
+     */
+    public int rebuild(@ShardKey Long organizationId, LocalDate start, LocalDate end) {
+        this.log.debug("Request to rebuild DailyOccupancy for Organization {}, between {} and {}", organizationId, start, end);
+        this.dailyOccupancyRepository.deleteAllInRange(organizationId, start.toEpochDay(), end.toEpochDay());
+        List<DailyOccupancy> occupancies = this.appointmentRepository
+                .aggregateByEmployeeAndDay(organizationId, start.toEpochDay() * MINUTES_PER_DAY, end.toEpochDay() * MINUTES_PER_DAY)
+                .stream()
+                .map(aggregate -> this.toEntity(organizationId, aggregate))
+                .collect(Collectors.toList());
+        this.dailyOccupancyRepository.saveAll(occupancies);
+        return occupancies.size();
+    }
+
+    private DailyOccupancy toEntity(Long organizationId, DailyOccupancyAggregate aggregate) {
+        return new DailyOccupancy()
+                .organizationId(organizationId)
+                .employeeId(aggregate.getEmployeeId())
+                .epochDay(aggregate.getEpochDay())
+                .appointments(aggregate.getAppointmentCount())
+                .bookedMinutes(aggregate.getBookedMinutes());
+    }
+
+    /**
+     * Rebuild the occupancy of all organizations around today, disabled unless {@code application.occupancy.repair-cron} is set.
+     */
+    @Scheduled(cron = "${application.occupancy.repair-cron:-}")
+    @AllShards
+    public void repair() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (Long organizationId : this.appointmentRepository.findAllOrganizationIds()) {
+            int rebuilt = this.rebuild(organizationId, today.minusDays(1), today.plusDays(this.repairDays));
+            this.log.debug("Rebuilt {} occupancy rows of Organization {}", rebuilt, organizationId);
+        }
+    }
+
+    /**
+     * Delete the occupancy of all organizations.
+     */
+    @AllShards
+    public void deleteAll() {
+        this.dailyOccupancyRepository.deleteAllInBatch();
+    }
+}
@@ -0,0 +1,236 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.common.event.ApnmtEvent;
+import de.apnmt.common.sender.ApnmtEventSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+
+/**
+ * Coalesces rapid consecutive events of the same entity, so that only the latest state is sent.
+ * <p>
+ * With a {@code application.events.coalescing.window} greater than zero, an event is held back until no further event
+ * for the same topic and entity id arrived within the window, but at most {@code application.events.coalescing.max-delay}
+ * after the first held back event. Events of different entities are not reordered relative to their own entity.
+ * Without a window events are sent immediately.
+ * <p>
+ * The held back events are flushed when the application context stops, before any bean is destroyed,
+ * so the senders, which are beans of the services using this library, are still available.
+ */
+@Component
+public class EventCoalescer implements SmartLifecycle {
+
+    private final Logger log = LoggerFactory.getLogger(EventCoalescer.class);
+
+    private final long windowMillis;
+
+    private final long maxDelayMillis;
+
+    private final Map<Key, Pending<?>> pending = new HashMap<>();
+
+    private final Clock clock;
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean running;
+
+    @Autowired
+    public EventCoalescer(
+            @Value("${application.events.coalescing.window:0}") Duration window,
+            @Value("${application.events.coalescing.max-delay:5s}") Duration maxDelay
+    ) {
+        this(window, maxDelay, Clock.systemUTC(), window.toMillis() > 0 ? Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("event-coalescer-")) : null);
+    }
+
+    EventCoalescer(Duration window, Duration maxDelay, Clock clock, ScheduledExecutorService scheduler) {
+        this.windowMillis = window.toMillis();
+        this.maxDelayMillis = Math.max(maxDelay.toMillis(), this.windowMillis);
+        this.clock = clock;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Send an event, replacing a held back event of the same entity.
+     *
+     * @param sender   the sender of the event.
+     * @param topic    the topic of the event.
+     * @param entityId the id of the entity the event is about.
+     * @param event    the event.
+     * @param <T>      the event value type.
+     */
+    public <T> void send(ApnmtEventSender<T> sender, String topic, Object entityId, ApnmtEvent<T> event) {
+        this.send(sender, topic, entityId, event, null);
+    }
+
+    /**
+     * Send an event, merging it into a held back event of the same entity and type.
+     *
+     * @param sender      the sender of the event.
+     * @param topic       the topic of the event.
+     * @param entityId    the id of the entity the event is about.
+     * @param event       the event.
+     * @param mergeValues merges the value of the held back event with the value of the new one, {@code null} to keep the new one.
+     * @param <T>         the event value type.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void send(ApnmtEventSender<T> sender, String topic, Object entityId, ApnmtEvent<T> event, BinaryOperator<T> mergeValues) {
+        if (this.scheduler == null || this.scheduler.isShutdown() || entityId == null) {
+            sender.send(topic, event);
+            return;
+        }
+        Key key = new Key(topic, entityId);
+        long now = this.clock.millis();
+        synchronized (this.pending) {
+            Pending<T> held = (Pending<T>) this.pending.get(key);
+            if (held == null) {
+                this.pending.put(key, new Pending<>(sender, topic, event, now));
+                this.schedule(key, this.windowMillis);
+                return;
+            }
+            if (mergeValues != null && held.event.getType() == event.getType()) {
+                event.value(mergeValues.apply(held.event.getValue(), event.getValue()));
+            }
+            held.event = event;
+            held.lastAt = now;
+            held.coalesced++;
+        }
+    }
+
+    @Override
+    public void start() {
+        this.running = true;
+    }
+
+    @Override
+    public void stop() {
+        this.flush();
+        this.running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    @Override
+    public int getPhase() {
+        // stopped first, while the senders and their connections are still running
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Send all held back events.
+     */
+    public void flush() {
+        List<Pending<?>> due;
+        synchronized (this.pending) {
+            due = new ArrayList<>(this.pending.values());
+            this.pending.clear();
+        }
+        for (Pending<?> held : due) {
+            this.send(held);
+        }
+        if (this.scheduler != null) {
+            this.scheduler.shutdown();
+        }
+    }
+
+    private void schedule(Key key, long delayMillis) {
+        this.scheduler.schedule(() -> this.check(key), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void check(Key key) {
+        Pending<?> due;
+        long now = this.clock.millis();
+        synchronized (this.pending) {
+            Pending<?> held = this.pending.get(key);
+            if (held == null) {
+                return;
+            }
+            long sendAt = Math.min(held.lastAt + this.windowMillis, held.firstAt + this.maxDelayMillis);
+            if (sendAt > now) {
+                this.schedule(key, sendAt - now);
+                return;
+            }
+            due = this.pending.remove(key);
+        }
+        try {
+            this.send(due);
+        } catch (RuntimeException e) {
+            this.log.error("Could not send event to {} for {}", key.topic, key.entityId, e);
+        }
+    }
+
+    private <T> void send(Pending<T> held) {
+        this.log.debug("Sending event of type {} to {}, coalesced {} events", held.event.getType(), held.topic, held.coalesced);
+        held.sender.send(held.topic, held.event);
+    }
+
+    static final class Key {
+
+        private final String topic;
+
+        private final Object entityId;
+
+        Key(String topic, Object entityId) {
+            this.topic = topic;
+            this.entityId = entityId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.topic.equals(key.topic) && this.entityId.equals(key.entityId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.topic, this.entityId);
+        }
+    }
+
+    private static final class Pending<T> {
+
+        private final ApnmtEventSender<T> sender;
+
+        private final String topic;
+
+        private final long firstAt;
+
+        private ApnmtEvent<T> event;
+
+        private long lastAt;
+
+        private int coalesced;
+
+        private Pending(ApnmtEventSender<T> sender, String topic, ApnmtEvent<T> event, long now) {
+            this.sender = sender;
+            this.topic = topic;
+            this.event = event;
+            this.firstAt = now;
+            this.lastAt = now;
+        }
+    }
+}
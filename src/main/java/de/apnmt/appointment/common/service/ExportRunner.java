@@ -0,0 +1,51 @@
+package de.apnmt.appointment.common.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Runs an export of an organization as batch job at startup, e.g. with
+ * {@code --spring.main.web-application-type=none --application.export.organization-id=1 --application.export.file=organization-1.ndjson.gz}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.export", name = "organization-id")
+public class ExportRunner implements ApplicationRunner {
+
+    private final Logger log = LoggerFactory.getLogger(ExportRunner.class);
+
+    private final ExportService exportService;
+
+    private final Long organizationId;
+
+    private final Path file;
+
+    public ExportRunner(
+            ExportService exportService,
+            @Value("${application.export.organization-id}") Long organizationId,
+            @Value("${application.export.file:organization-${application.export.organization-id}.ndjson.gz}") String file
+    ) {
+        this.exportService = exportService;
+        this.organizationId = organizationId;
+        this.file = Paths.get(file);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        this.log.info("Exporting Organization {} to {}", this.organizationId, this.file.toAbsolutePath());
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(this.file))) {
+            this.exportService.export(this.organizationId, out);
+        }
+    }
+}
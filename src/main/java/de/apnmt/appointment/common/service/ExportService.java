@@ -0,0 +1,123 @@
+package de.apnmt.appointment.common.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import de.apnmt.appointment.common.repository.AppointmentRepository;
+import de.apnmt.appointment.common.repository.CustomerRepository;
+import de.apnmt.appointment.common.repository.ServiceRepository;
+import de.apnmt.appointment.common.service.mapper.AppointmentMapper;
+import de.apnmt.appointment.common.service.mapper.CustomerMapper;
+import de.apnmt.appointment.common.service.mapper.ServiceMapper;
+import de.apnmt.appointment.common.sharding.ShardKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service exporting all customers, services and appointments of an organization as gzip compressed NDJSON.
+ * <p>
+ * Every line is an object with the {@code type} of the record ({@code customer}, {@code service} or {@code appointment})
+ * and its {@code data}. Records are read through database cursors and evicted after being written, so memory use does
+ * not depend on the size of the organization. Recurring appointments are exported as stored, i.e. with their recurrence rule.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportService {
+
+    private static final int CLEAR_INTERVAL = 500;
+
+    private final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private final CustomerRepository customerRepository;
+
+    private final CustomerMapper customerMapper;
+
+    private final ServiceRepository serviceRepository;
+
+    private final ServiceMapper serviceMapper;
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final AppointmentMapper appointmentMapper;
+
+    private final EntityManager entityManager;
+
+    private final ObjectWriter writer;
+
+    public ExportService(
+            CustomerRepository customerRepository,
+            CustomerMapper customerMapper,
+            ServiceRepository serviceRepository,
+            ServiceMapper serviceMapper,
+            AppointmentRepository appointmentRepository,
+            AppointmentMapper appointmentMapper,
+            EntityManager entityManager,
+            ObjectMapper objectMapper
+    ) {
+        this.customerRepository = customerRepository;
+        this.customerMapper = customerMapper;
+        this.serviceRepository = serviceRepository;
+        this.serviceMapper = serviceMapper;
+        this.appointmentRepository = appointmentRepository;
+        this.appointmentMapper = appointmentMapper;
+        this.entityManager = entityManager;
+        this.writer = objectMapper.writer();
+    }
+
+    /**
+     * Export an organization.
+     *
+     * @param organizationId the organization id.
+     * @param out            the stream the compressed export is written to, it is not closed.
+     * @return the number of exported records.
+     * @throws IOException if the export cannot be written.
+     */
+    public long export(@ShardKey Long organizationId, OutputStream out) throws IOException {
+        this.log.debug("Request to export Organization {}", organizationId);
+        long start = System.currentTimeMillis();
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+        long records;
+        try {
+            records = this.write(gzip, "customer", this.customerRepository.streamAllByOrganizationIdOrderById(organizationId), this.customerMapper::toDto)
+                    + this.write(gzip, "service", this.serviceRepository.streamAllByOrganizationIdOrderById(organizationId), this.serviceMapper::toDto)
+                    + this.write(gzip, "appointment", this.appointmentRepository.streamAllByOrganizationIdOrderById(organizationId), this.appointmentMapper::toDto);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        gzip.finish();
+        this.log.info("Exported {} records of Organization {} in {} ms", records, organizationId, System.currentTimeMillis() - start);
+        return records;
+    }
+
+    private <E> long write(OutputStream out, String type, Stream<E> entities, Function<E, ?> mapper) {
+        byte[] prefix = ("{\"type\":\"" + type + "\",\"data\":").getBytes(StandardCharsets.UTF_8);
+        long count = 0;
+        try (entities) {
+            Iterator<E> iterator = entities.iterator();
+            while (iterator.hasNext()) {
+                out.write(prefix);
+                out.write(this.writer.writeValueAsBytes(mapper.apply(iterator.next())));
+                out.write('}');
+                out.write('\n');
+                if (++count % CLEAR_INTERVAL == 0) {
+                    // evicts the written records together with the customers and services they referenced
+                    this.entityManager.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,311 @@
+package de.apnmt.appointment.common.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.apnmt.appointment.common.domain.IdempotencyRecord;
+import de.apnmt.appointment.common.repository.IdempotencyRecordRepository;
+import de.apnmt.appointment.common.service.dto.AppointmentDTO;
+import de.apnmt.appointment.common.sharding.AllShards;
+import de.apnmt.appointment.common.sharding.ShardKey;
+import de.apnmt.common.errors.HttpError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.zalando.problem.Status;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Service remembering the results of appointment creations carrying an {@code Idempotency-Key},
+ * so that a retried request returns the original result instead of booking again.
+ * <p>
+ * Keys are scoped by organization and bound to the SHA-256 hash of the request body; a key reused with a different
+ * body is rejected with {@code 422 (Unprocessable Entity)}. Results are kept in a bounded in-memory LRU cache and,
+ * if {@code application.idempotency.persistent} is enabled, in the {@code idempotency_record} table together with a
+ * snapshot of the response, which lets retries hitting another node or a restarted node be answered too, even if the
+ * appointment has been deleted since. Both expire after {@code application.idempotency.ttl}.
+ * <p>
+ * Without persistence, concurrent requests with the same key are only detected on the same node. With persistence,
+ * the record is inserted before the creation runs and its primary key serves as lock across nodes; a record whose
+ * creation has not completed within {@code application.idempotency.pending-timeout} is considered abandoned.
+ */
+@Service
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration ttl;
+
+    private final Duration pendingTimeout;
+
+    private final boolean persistent;
+
+    private final Map<String, CachedResult> cache;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public IdempotencyService(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            ObjectMapper objectMapper,
+            @Value("${application.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${application.idempotency.ttl:24h}") Duration ttl,
+            @Value("${application.idempotency.pending-timeout:5m}") Duration pendingTimeout,
+            @Value("${application.idempotency.persistent:false}") boolean persistent
+    ) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.pendingTimeout = pendingTimeout;
+        this.persistent = persistent;
+        this.cache = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Find the result of an earlier request with the same key, without running anything.
+     *
+     * @param organizationId the organization of the request.
+     * @param idempotencyKey the key sent by the client.
+     * @param request        the request body.
+     * @return the replayed result, or empty if the key has not been completed yet.
+     * @throws HttpError with status {@code 422 (Unprocessable Entity)} if the key was used with a different request body.
+     */
+    public Optional<Result> findReplay(@ShardKey Long organizationId, String idempotencyKey, AppointmentDTO request) {
+        this.checkKey(idempotencyKey);
+        return this.find(organizationId, idempotencyKey, this.hash(request)).map(result -> new Result(result, true));
+    }
+
+    /**
+     * Run the given creation once per organization and idempotency key.
+     *
+     * @param organizationId the organization of the request.
+     * @param idempotencyKey the key sent by the client.
+     * @param request        the request body.
+     * @param creation       the creation to run if the key has not been seen yet.
+     * @return the result of the creation and whether it was replayed from an earlier request.
+     * @throws HttpError with status {@code 422 (Unprocessable Entity)} if the key was used with a different request body,
+     *                   or with status {@code 409 (Conflict)} if a request with the key is still in progress.
+     */
+    public Result execute(@ShardKey Long organizationId, String idempotencyKey, AppointmentDTO request, Supplier<AppointmentDTO> creation) {
+        this.checkKey(idempotencyKey);
+        String requestHash = this.hash(request);
+        Optional<AppointmentDTO> previous = this.find(organizationId, idempotencyKey, requestHash);
+        if (previous.isPresent()) {
+            return new Result(previous.get(), true);
+        }
+        String cacheKey = organizationId + ":" + idempotencyKey;
+        if (!this.inFlight.add(cacheKey)) {
+            throw this.inProgress(idempotencyKey);
+        }
+        try {
+            previous = this.find(organizationId, idempotencyKey, requestHash);
+            if (previous.isPresent()) {
+                return new Result(previous.get(), true);
+            }
+            IdempotencyRecord record = this.persistent ? this.claim(organizationId, idempotencyKey, requestHash) : null;
+            AppointmentDTO result;
+            try {
+                result = creation.get();
+            } catch (RuntimeException e) {
+                if (record != null) {
+                    this.idempotencyRecordRepository.delete(record);
+                }
+                throw e;
+            }
+            this.store(cacheKey, requestHash, result, record);
+            return new Result(result, false);
+        } finally {
+            this.inFlight.remove(cacheKey);
+        }
+    }
+
+    private void checkKey(String idempotencyKey) {
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new HttpError(Status.BAD_REQUEST, "idempotency.key.invalid", "Idempotency-Key must contain between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private Optional<AppointmentDTO> find(Long organizationId, String idempotencyKey, String requestHash) {
+        Instant now = Instant.now();
+        String cacheKey = organizationId + ":" + idempotencyKey;
+        synchronized (this.cache) {
+            CachedResult cached = this.cache.get(cacheKey);
+            if (cached != null) {
+                if (cached.expiresAt.isAfter(now)) {
+                    this.checkHash(idempotencyKey, cached.requestHash, requestHash);
+                    return Optional.of(cached.result);
+                }
+                this.cache.remove(cacheKey);
+            }
+        }
+        if (!this.persistent) {
+            return Optional.empty();
+        }
+        Optional<IdempotencyRecord> record = this.idempotencyRecordRepository.findById(new IdempotencyRecord.RecordId(organizationId, idempotencyKey))
+                .filter(r -> !this.isStale(r, now));
+        if (record.isEmpty()) {
+            return Optional.empty();
+        }
+        this.checkHash(idempotencyKey, record.get().getRequestHash(), requestHash);
+        if (record.get().getResponse() == null) {
+            throw this.inProgress(idempotencyKey);
+        }
+        return Optional.of(this.readResponse(record.get().getResponse()));
+    }
+
+    private void checkHash(String idempotencyKey, String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new HttpError(Status.UNPROCESSABLE_ENTITY, "idempotency.key.reused", "Idempotency-Key " + idempotencyKey + " has already been used with a different request");
+        }
+    }
+
+    private HttpError inProgress(String idempotencyKey) {
+        return new HttpError(Status.CONFLICT, "idempotency.key.in.use", "A request with Idempotency-Key " + idempotencyKey + " is still in progress");
+    }
+
+    private boolean isStale(IdempotencyRecord record, Instant now) {
+        Duration lifetime = record.getResponse() == null ? this.pendingTimeout : this.ttl;
+        return !record.getCreatedAt().plus(lifetime).isAfter(now);
+    }
+
+    /**
+     * Insert the pending record of a key, taking over an expired or abandoned record.
+     */
+    private IdempotencyRecord claim(Long organizationId, String idempotencyKey, String requestHash) {
+        Instant now = Instant.now();
+        this.idempotencyRecordRepository.findById(new IdempotencyRecord.RecordId(organizationId, idempotencyKey))
+                .filter(stale -> this.isStale(stale, now))
+                .ifPresent(stale -> this.idempotencyRecordRepository.deleteStale(organizationId, idempotencyKey, stale.getCreatedAt()));
+        try {
+            return this.idempotencyRecordRepository.saveAndFlush(
+                    new IdempotencyRecord().organizationId(organizationId).idempotencyKey(idempotencyKey).requestHash(requestHash).createdAt(now)
+            );
+        } catch (DataIntegrityViolationException e) {
+            // another node has inserted the key in the meantime
+            throw this.inProgress(idempotencyKey);
+        }
+    }
+
+    private void store(String cacheKey, String requestHash, AppointmentDTO result, IdempotencyRecord record) {
+        Instant now = Instant.now();
+        synchronized (this.cache) {
+            this.cache.put(cacheKey, new CachedResult(requestHash, result, now.plus(this.ttl)));
+        }
+        if (record != null) {
+            try {
+                this.idempotencyRecordRepository.save(record.appointmentId(result.getId()).response(this.writeResponse(result)).createdAt(now));
+            } catch (RuntimeException e) {
+                // the booking itself succeeded, losing the record only weakens the protection against retries
+                this.log.warn("Could not persist Idempotency-Key {} for Appointment {}: {}", record.getIdempotencyKey(), result.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private String hash(AppointmentDTO request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(this.objectMapper.writeValueAsBytes(request));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String writeResponse(AppointmentDTO result) {
+        try {
+            return this.objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private AppointmentDTO readResponse(String response) {
+        try {
+            return this.objectMapper.readValue(response, AppointmentDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Remove expired idempotency records.
+     */
+    @Scheduled(fixedDelayString = "${application.idempotency.purge-interval:PT1H}")
+    @Transactional
+    @AllShards
+    public void purgeExpired() {
+        if (this.persistent) {
+            int deleted = this.idempotencyRecordRepository.deleteAllByCreatedAtBefore(Instant.now().minus(this.ttl));
+            this.log.debug("Purged {} expired idempotency records", deleted);
+        }
+    }
+
+    /**
+     * The result of an idempotent creation.
+     */
+    public static class Result {
+
+        private final AppointmentDTO appointment;
+
+        private final boolean replayed;
+
+        Result(AppointmentDTO appointment, boolean replayed) {
+            this.appointment = appointment;
+            this.replayed = replayed;
+        }
+
+        public AppointmentDTO getAppointment() {
+            return this.appointment;
+        }
+
+        public boolean isReplayed() {
+            return this.replayed;
+        }
+    }
+
+    private static class CachedResult {
+
+        private final String requestHash;
+
+        private final AppointmentDTO result;
+
+        private final Instant expiresAt;
+
+        CachedResult(String requestHash, AppointmentDTO result, Instant expiresAt) {
+            this.requestHash = requestHash;
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.appointment.common.domain.Customer;
+import de.apnmt.appointment.common.domain.ImportProgress;
+import de.apnmt.appointment.common.repository.CustomerRepository;
+import de.apnmt.appointment.common.repository.ImportProgressRepository;
+import de.apnmt.appointment.common.repository.ServiceRepository;
+import de.apnmt.appointment.common.service.dto.CustomerDTO;
+import de.apnmt.appointment.common.service.dto.ImportResultDTO;
+import de.apnmt.appointment.common.service.dto.ServiceDTO;
+import de.apnmt.appointment.common.service.mapper.CustomerMapper;
+import de.apnmt.appointment.common.service.mapper.ServiceEventMapper;
+import de.apnmt.appointment.common.service.mapper.ServiceMapper;
+import de.apnmt.appointment.common.sharding.ShardKey;
+import de.apnmt.common.TopicConstants;
+import de.apnmt.common.event.ApnmtEvent;
+import de.apnmt.common.event.ApnmtEventType;
+import de.apnmt.common.errors.HttpError;
+import de.apnmt.common.event.value.ServiceEventDTO;
+import de.apnmt.common.sender.ApnmtEventSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.zalando.problem.Status;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Service importing the services and customers of an organization from CSV.
+ * <p>
+ * The CSV is read record by record and written in batches of {@code application.import.batch-size} rows, each in its
+ * own transaction, so memory use does not depend on the size of the input. Columns are named like those of the
+ * Liquibase fake data, e.g. {@code name;description;duration;cost} for services; {@code id} and {@code organization_id}
+ * columns are ignored. Invalid rows are rejected and reported, the others are imported. Fields and records are limited
+ * to {@code application.import.max-field-length} and {@code application.import.max-record-length} characters.
+ * <p>
+ * The progress of every import is stored per organization and import id in the transaction of each batch. An aborted
+ * import is resumed after its last committed batch by repeating it with the {@code importId} of its result.
+ */
+@Service
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ImportService {
+
+    private static final int MAX_ERRORS = 100;
+
+    private static final int MAX_IMPORT_ID_LENGTH = 64;
+
+    private final Logger log = LoggerFactory.getLogger(ImportService.class);
+
+    private final ServiceRepository serviceRepository;
+
+    private final ServiceMapper serviceMapper;
+
+    private final ServiceEventMapper serviceEventMapper;
+
+    private final ApnmtEventSender<ServiceEventDTO> serviceSender;
+
+    private final CustomerRepository customerRepository;
+
+    private final CustomerMapper customerMapper;
+
+    private final CustomerSearchIndex customerSearchIndex;
+
+    private final ImportProgressRepository importProgressRepository;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final OrganizationVersionService organizationVersionService;
+
+    private final int batchSize;
+
+    private final int maxFieldLength;
+
+    private final int maxRecordLength;
+
+    public ImportService(
+            ServiceRepository serviceRepository,
+            ServiceMapper serviceMapper,
+            ServiceEventMapper serviceEventMapper,
+            ApnmtEventSender<ServiceEventDTO> serviceSender,
+            CustomerRepository customerRepository,
+            CustomerMapper customerMapper,
+            CustomerSearchIndex customerSearchIndex,
+            ImportProgressRepository importProgressRepository,
+            Validator validator,
+            PlatformTransactionManager transactionManager,
+            @Value("${application.import.batch-size:500}") int batchSize,
+            @Value("${application.import.max-field-length:65536}") int maxFieldLength,
+            @Value("${application.import.max-record-length:1048576}") int maxRecordLength,
+            OrganizationVersionService organizationVersionService
+    ) {
+        this.serviceRepository = serviceRepository;
+        this.serviceMapper = serviceMapper;
+        this.serviceEventMapper = serviceEventMapper;
+        this.serviceSender = serviceSender;
+        this.customerRepository = customerRepository;
+        this.customerMapper = customerMapper;
+        this.customerSearchIndex = customerSearchIndex;
+        this.importProgressRepository = importProgressRepository;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxFieldLength = maxFieldLength;
+        this.maxRecordLength = maxRecordLength;
+        this.organizationVersionService = organizationVersionService;
+    }
+
+    /**
+     * Import services, publishing a {@code serviceCreated} event per service after each batch.
+     *
+     * @param organizationId the organization id.
+     * @param importId       the id of the import to resume, {@code null} to start a new import.
+     * @param csv            the CSV input.
+     * @param skip           the number of data rows to skip in addition to the processed rows of the resumed import.
+     * @return the result of the import.
+     */
+    public ImportResultDTO importServices(@ShardKey Long organizationId, String importId, InputStream csv, long skip) {
+        this.log.debug("Request to import Services for Organization {} as {}, skipping {} rows", organizationId, importId, skip);
+        return this.importRows(organizationId, importId, csv, skip, "services", row -> {
+            ServiceDTO service = new ServiceDTO();
+            service.setName(row.get("name"));
+            service.setDescription(row.get("description"));
+            service.setDuration(parse(row.get("duration"), Integer::valueOf));
+            service.setCost(parse(row.get("cost"), Double::valueOf));
+            service.setOrganizationId(organizationId);
+            return service;
+        }, services -> this.insertServices(organizationId, services));
+    }
+
+    /**
+     * Import customers. A customer whose mail is already known in the organization, or appeared in an earlier row, is skipped,
+     * the existing customer is kept unchanged. Skipped rows are counted as skipped, not as imported.
+     *
+     * @param organizationId the organization id.
+     * @param importId       the id of the import to resume, {@code null} to start a new import.
+     * @param csv            the CSV input.
+     * @param skip           the number of data rows to skip in addition to the processed rows of the resumed import.
+     * @return the result of the import.
+     */
+    public ImportResultDTO importCustomers(@ShardKey Long organizationId, String importId, InputStream csv, long skip) {
+        this.log.debug("Request to import Customers for Organization {} as {}, skipping {} rows", organizationId, importId, skip);
+        return this.importRows(organizationId, importId, csv, skip, "customers", row -> {
+            CustomerDTO customer = new CustomerDTO();
+            customer.setLastName(row.get("last_name"));
+            customer.setFirstName(row.get("first_name"));
+            customer.setMail(row.get("mail"));
+            customer.setPhone(row.get("phone"));
+            customer.setBirthday(parse(row.get("birthday"), LocalDate::parse));
+            customer.setOrganizationId(organizationId);
+            return customer;
+        }, customers -> this.insertCustomers(organizationId, customers));
+    }
+
+    private <D> ImportResultDTO importRows(
+            Long organizationId,
+            String importId,
+            InputStream csv,
+            long skip,
+            String entityName,
+            Function<Map<String, String>, D> parser,
+            ToIntFunction<List<D>> writer
+    ) {
+        ImportProgress progress = this.findProgress(organizationId, importId, entityName);
+        ImportResultDTO result = new ImportResultDTO();
+        result.setImportId(progress.getImportId());
+        result.setProcessed(progress.getProcessed() + skip);
+        result.setImported(progress.getImported());
+        result.setRejected(progress.getRejected());
+        result.setSkipped(progress.getSkipped());
+        if (progress.isCompleted()) {
+            result.setCompleted(true);
+            return result;
+        }
+        long resumeAfter = result.getProcessed();
+        List<D> batch = new ArrayList<>(this.batchSize);
+        long row = 0;
+        try (CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8), this.maxFieldLength, this.maxRecordLength)) {
+            List<String> header = reader.readHeader();
+            if (header == null) {
+                this.write(progress, batch, writer, result, resumeAfter, true);
+                return result;
+            }
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                row++;
+                if (row <= resumeAfter) {
+                    continue;
+                }
+                try {
+                    D dto = parser.apply(toRow(header, record));
+                    Set<ConstraintViolation<D>> violations = this.validator.validate(dto);
+                    if (violations.isEmpty()) {
+                        batch.add(dto);
+                    } else {
+                        reject(result, row, violations.stream().map(v -> v.getPropertyPath() + " " + v.getMessage()).collect(Collectors.joining(", ")));
+                    }
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    reject(result, row, e.getMessage());
+                }
+                if (batch.size() >= this.batchSize) {
+                    this.write(progress, batch, writer, result, row, false);
+                    this.log.debug("Import {} of {} processed {} rows", result.getImportId(), entityName, row);
+                }
+            }
+            this.write(progress, batch, writer, result, Math.max(row, resumeAfter), true);
+        } catch (IOException | RuntimeException e) {
+            this.log.warn("Import {} of {} aborted after {} committed rows: {}", result.getImportId(), entityName, result.getProcessed(), e.getMessage());
+            result.setFailure(e.getMessage());
+        }
+        this.log.info("Imported {} {}, skipped {} existing, rejected {} rows", result.getImported(), entityName, result.getSkipped(), result.getRejected());
+        return result;
+    }
+
+    private ImportProgress findProgress(Long organizationId, String importId, String entityName) {
+        if (importId == null) {
+            return new ImportProgress().organizationId(organizationId).importId(UUID.randomUUID().toString()).entityName(entityName);
+        }
+        if (importId.isEmpty() || importId.length() > MAX_IMPORT_ID_LENGTH) {
+            throw new HttpError(Status.BAD_REQUEST, "import.id.invalid", "The import id must have 1 to " + MAX_IMPORT_ID_LENGTH + " characters");
+        }
+        ImportProgress progress = this.importProgressRepository.findById(new ImportProgress.ProgressId(organizationId, importId))
+                .orElseGet(() -> new ImportProgress().organizationId(organizationId).importId(importId).entityName(entityName));
+        if (!entityName.equals(progress.getEntityName())) {
+            throw new HttpError(Status.CONFLICT, "import.id.in.use", "The import " + importId + " imports " + progress.getEntityName());
+        }
+        return progress;
+    }
+
+    /**
+     * Write a batch and the progress of the import in one transaction, so the stored progress matches the committed rows.
+     */
+    private <D> void write(ImportProgress progress, List<D> batch, ToIntFunction<List<D>> writer, ImportResultDTO result, long row, boolean completed) {
+        int inserted;
+        try {
+            inserted = this.writeBatch(progress, batch, writer, result, row, completed);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request has inserted one of the customer mails in the meantime, the retry finds it as existing customer
+            this.log.debug("Batch of import {} conflicts with a concurrent insert, retrying: {}", result.getImportId(), e.getMessage());
+            inserted = this.writeBatch(progress, batch, writer, result, row, completed);
+        }
+        result.setImported(result.getImported() + inserted);
+        result.setSkipped(result.getSkipped() + batch.size() - inserted);
+        result.setProcessed(row);
+        result.setCompleted(completed);
+        batch.clear();
+    }
+
+    private <D> int writeBatch(ImportProgress progress, List<D> batch, ToIntFunction<List<D>> writer, ImportResultDTO result, long row, boolean completed) {
+        Integer inserted = this.transactionTemplate.execute(status -> {
+            int count = batch.isEmpty() ? 0 : writer.applyAsInt(batch);
+            progress.setProcessed(row);
+            progress.setImported(result.getImported() + count);
+            progress.setRejected(result.getRejected());
+            progress.setSkipped(result.getSkipped() + batch.size() - count);
+            progress.setCompleted(completed);
+            progress.setLastModifiedDate(Instant.now());
+            this.importProgressRepository.save(progress);
+            return count;
+        });
+        return inserted != null ? inserted : 0;
+    }
+
+    private int insertServices(Long organizationId, List<ServiceDTO> services) {
+        this.organizationVersionService.servicesChanged(organizationId);
+        List<de.apnmt.appointment.common.domain.Service> saved = this.serviceRepository.saveAll(this.serviceMapper.toEntity(services));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ImportService.this.sendServiceEvents(saved);
+            }
+        });
+        return saved.size();
+    }
+
+    private void sendServiceEvents(List<de.apnmt.appointment.common.domain.Service> services) {
+        LocalDateTime now = LocalDateTime.now();
+        for (de.apnmt.appointment.common.domain.Service service : services) {
+            ApnmtEvent<ServiceEventDTO> event = new ApnmtEvent<ServiceEventDTO>().timestamp(now).type(ApnmtEventType.serviceCreated).value(this.serviceEventMapper.toDto(service));
+            this.serviceSender.send(TopicConstants.SERVICE_CHANGED_TOPIC, event);
+        }
+    }
+
+    private int insertCustomers(Long organizationId, List<CustomerDTO> customers) {
+        // the first row with a mail wins and later ones are skipped, like consecutive single creations would
+        Map<String, CustomerDTO> byMail = new LinkedHashMap<>();
+        customers.forEach(customer -> byMail.putIfAbsent(Customer.normalizeMail(customer.getMail()), customer));
+        this.customerRepository.findAllByOrganizationIdAndNormalizedMailIn(organizationId, byMail.keySet())
+                .forEach(existing -> byMail.remove(existing.getNormalizedMail()));
+        if (byMail.isEmpty()) {
+            return 0;
+        }
+        List<Customer> entities = new ArrayList<>(byMail.size());
+        byMail.values().forEach(customer -> entities.add(this.customerMapper.toEntity(customer)));
+        this.organizationVersionService.customersChanged(organizationId);
+        this.customerRepository.saveAll(entities).forEach(customer -> this.customerSearchIndex.update(this.customerMapper.toDto(customer)));
+        return entities.size();
+    }
+
+    private static void reject(ImportResultDTO result, long row, String reason) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < MAX_ERRORS) {
+            result.getErrors().add("Row " + row + ": " + reason);
+        }
+    }
+
+    private static Map<String, String> toRow(List<String> header, List<String> record) {
+        if (record.size() != header.size()) {
+            throw new IllegalArgumentException("expected " + header.size() + " fields but found " + record.size());
+        }
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String value = record.get(i).trim();
+            row.put(header.get(i).trim(), value.isEmpty() ? null : value);
+        }
+        return row;
+    }
+
+    private static <T> T parse(String value, Function<String, T> parser) {
+        return value != null ? parser.apply(value) : null;
+    }
+}
@@ -0,0 +1,63 @@
+package de.apnmt.appointment.common.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write unit of work in its own transaction and repeats it a bounded number of times
+ * when the commit fails because a concurrent transaction has updated the same versioned row in the meantime.
+ * Every conflict is counted in the {@code apnmt.optimistic.lock.conflicts} metric.
+ */
+@Component
+public class OptimisticLockingRetry {
+
+    private static final String CONFLICT_METRIC = "apnmt.optimistic.lock.conflicts";
+
+    private final Logger log = LoggerFactory.getLogger(OptimisticLockingRetry.class);
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxAttempts;
+
+    public OptimisticLockingRetry(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry, @Value("${application.optimistic-locking.max-attempts:3}") int maxAttempts) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * Execute the unit of work, retrying on optimistic locking conflicts.
+     * The work must re-read the entity it modifies, as every attempt runs in a new transaction.
+     *
+     * @param entityName the name of the modified entity, used as metric tag.
+     * @param work       the unit of work.
+     * @param <T>        the result type.
+     * @return the result of the first successful attempt.
+     * @throws OptimisticLockingFailureException if the last attempt still conflicts.
+     */
+    public <T> T execute(String entityName, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return this.transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                boolean exhausted = attempt >= this.maxAttempts;
+                this.meterRegistry.counter(CONFLICT_METRIC, "entity", entityName, "outcome", exhausted ? "failed" : "retried").increment();
+                if (exhausted) {
+                    this.log.warn("Optimistic locking conflict on {} not resolved after {} attempts", entityName, attempt);
+                    throw e;
+                }
+                this.log.debug("Optimistic locking conflict on {} in attempt {} of {}, retrying", entityName, attempt, this.maxAttempts);
+            }
+        }
+    }
+}
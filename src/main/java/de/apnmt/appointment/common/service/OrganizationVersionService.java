@@ -0,0 +1,154 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.appointment.common.domain.OrganizationVersion;
+import de.apnmt.appointment.common.repository.OrganizationVersionRepository;
+import de.apnmt.appointment.common.sharding.AllShards;
+import de.apnmt.appointment.common.sharding.ShardKey;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Service maintaining the {@link OrganizationVersion} counters, from which the ETags of the lists of services, customers
+ * and appointments of an organization are derived.
+ * <p>
+ * The counters are incremented in the transactions changing the entities, so a list response is never newer than the
+ * counter read before the list is loaded. The changes of a transaction are collected and applied together right before
+ * it commits, with one update per organization in the order of the organization ids. The counter rows are therefore
+ * always the last rows a transaction locks, and two transactions cannot deadlock on them and on the changed entities or
+ * the {@link de.apnmt.appointment.common.domain.DailyOccupancy} rows. The first change of an organization inserts its row
+ * in the same transaction; when concurrent first changes insert it both, the losing transaction fails on the primary key
+ * and is repeated where it is run by the {@link ConcurrentInsertRetry}.
+ * A conditional request whose ETag matches the current counters is answered with {@code 304 (Not Modified)} after a
+ * single primary key lookup, without loading or serializing the list. The appointments embed their customer and
+ * service, so their ETag is derived from all three counters.
+ */
+@Service
+@Transactional
+public class OrganizationVersionService {
+
+    private final OrganizationVersionRepository organizationVersionRepository;
+
+    private final Object pendingKey = new Object();
+
+    public OrganizationVersionService(OrganizationVersionRepository organizationVersionRepository) {
+        this.organizationVersionRepository = organizationVersionRepository;
+    }
+
+    public void servicesChanged(@ShardKey Long organizationId) {
+        this.increment(organizationId, 1, 0, 0);
+    }
+
+    public void customersChanged(@ShardKey Long organizationId) {
+        this.increment(organizationId, 0, 1, 0);
+    }
+
+    public void appointmentsChanged(@ShardKey Long organizationId) {
+        this.increment(organizationId, 0, 0, 1);
+    }
+
+    /**
+     * Increment the counters of all organizations, after a change not bound to an organization.
+     */
+    @AllShards
+    public void allChanged() {
+        this.organizationVersionRepository.incrementAll(1, 1, 1);
+    }
+
+    private void increment(Long organizationId, int services, int customers, int appointments) {
+        if (organizationId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.apply(organizationId, new Increments(services, customers, appointments));
+            return;
+        }
+        this.pending().merge(organizationId, new Increments(services, customers, appointments), Increments::plus);
+    }
+
+    /**
+     * @return the increments of the current transaction, applied before it commits.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, Increments> pending() {
+        Map<Long, Increments> pending = (Map<Long, Increments>) TransactionSynchronizationManager.getResource(this.pendingKey);
+        if (pending == null) {
+            Map<Long, Increments> increments = new TreeMap<>();
+            TransactionSynchronizationManager.bindResource(this.pendingKey, increments);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(OrganizationVersionService.this.pendingKey);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(OrganizationVersionService.this.pendingKey, increments);
+                }
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    increments.forEach(OrganizationVersionService.this::apply);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrganizationVersionService.this.pendingKey);
+                }
+            });
+            pending = increments;
+        }
+        return pending;
+    }
+
+    private void apply(Long organizationId, Increments increments) {
+        if (this.organizationVersionRepository.increment(organizationId, increments.services, increments.customers, increments.appointments) == 0) {
+            this.organizationVersionRepository.insert(organizationId, increments.services, increments.customers, increments.appointments);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public String getServicesETag(@ShardKey Long organizationId) {
+        return this.etag(organizationId, "services", version -> String.valueOf(version.getServiceVersion()));
+    }
+
+    @Transactional(readOnly = true)
+    public String getCustomersETag(@ShardKey Long organizationId) {
+        return this.etag(organizationId, "customers", version -> String.valueOf(version.getCustomerVersion()));
+    }
+
+    @Transactional(readOnly = true)
+    public String getAppointmentsETag(@ShardKey Long organizationId) {
+        return this.etag(organizationId, "appointments",
+                version -> version.getServiceVersion() + "." + version.getCustomerVersion() + "." + version.getAppointmentVersion());
+    }
+
+    private String etag(Long organizationId, String name, Function<OrganizationVersion, String> version) {
+        OrganizationVersion current = this.organizationVersionRepository.findById(organizationId).orElseGet(() -> new OrganizationVersion().organizationId(organizationId));
+        return "\"" + name + "-" + organizationId + "-" + version.apply(current) + "\"";
+    }
+
+    private static final class Increments {
+
+        private final int services;
+
+        private final int customers;
+
+        private final int appointments;
+
+        private Increments(int services, int customers, int appointments) {
+            this.services = services;
+            this.customers = customers;
+            this.appointments = appointments;
+        }
+
+        private Increments plus(Increments other) {
+            return new Increments(this.services + other.services, this.customers + other.customers, this.appointments + other.appointments);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.appointment.common.domain.Appointment;
+import de.apnmt.appointment.common.domain.RecurrenceRule;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expands recurring {@link Appointment}s into their single occurrences on demand.
+ * <p>
+ * Only the occurrences overlapping the requested window are created, the series itself is stored as one row.
+ * The occurrences are transient copies of the series carrying its id and must never be persisted.
+ */
+public final class RecurrenceExpander {
+
+    private RecurrenceExpander() {
+    }
+
+    /**
+     * Get the occurrences of an appointment overlapping the window [from, to).
+     * A non-recurring appointment is its own single occurrence.
+     *
+     * @param appointment the appointment.
+     * @param from        the start of the window.
+     * @param to          the end of the window.
+     * @return the occurrences ordered by their start.
+     */
+    public static List<Appointment> expand(Appointment appointment, LocalDateTime from, LocalDateTime to) {
+        return expand(appointment, from, to, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the first occurrences of an appointment starting within the window [from, to), so that a page of a large
+     * window does not expand a series beyond the number of occurrences the page can hold.
+     * A non-recurring appointment is its own single occurrence.
+     *
+     * @param appointment the appointment.
+     * @param from        the start of the window.
+     * @param to          the end of the window.
+     * @param limit       the maximum number of occurrences.
+     * @return at most {@code limit} occurrences ordered by their start.
+     */
+    public static List<Appointment> expandStarting(Appointment appointment, LocalDateTime from, LocalDateTime to, int limit) {
+        return expand(appointment, from, to, true, limit);
+    }
+
+    private static List<Appointment> expand(Appointment appointment, LocalDateTime from, LocalDateTime to, boolean starting, int limit) {
+        List<Appointment> occurrences = new ArrayList<>();
+        RecurrenceRule rule = appointment.getRecurrenceRule();
+        if (rule == null) {
+            boolean inWindow = starting ? !appointment.getStartAt().isBefore(from) : appointment.getEndAt().isAfter(from);
+            if (limit > 0 && inWindow && appointment.getStartAt().isBefore(to)) {
+                occurrences.add(appointment);
+            }
+            return occurrences;
+        }
+        long stepDays = rule.getStepDays();
+        Duration duration = Duration.between(appointment.getStartAt(), appointment.getEndAt());
+        // skip the occurrences ending, or starting, before the window without iterating over them
+        long skipped = Math.max(0, ChronoUnit.DAYS.between(appointment.getStartAt(), starting ? from : from.minus(duration)) / stepDays);
+        LocalDateTime start = appointment.getStartAt().plusDays(skipped * stepDays);
+        while (occurrences.size() < limit && start.isBefore(to) && (rule.getUntil() == null || !start.isAfter(rule.getUntil()))) {
+            LocalDateTime end = start.plus(duration);
+            boolean inWindow = starting ? !start.isBefore(from) : end.isAfter(from);
+            if (inWindow && !rule.getExceptions().contains(start.toLocalDate())) {
+                occurrences.add(occurrence(appointment, start, end));
+            }
+            start = start.plusDays(stepDays);
+        }
+        return occurrences;
+    }
+
+    /**
+     * Check whether a recurring appointment has an occurrence starting on a date, ignoring cancelled occurrences.
+     *
+     * @param appointment the recurring appointment.
+     * @param date        the date.
+     * @return {@code true} if the date is on the interval of the series, not before its start and not after its end.
+     */
+    public static boolean isOccurrence(Appointment appointment, LocalDate date) {
+        RecurrenceRule rule = appointment.getRecurrenceRule();
+        if (rule == null) {
+            return appointment.getStartAt().toLocalDate().equals(date);
+        }
+        long days = ChronoUnit.DAYS.between(appointment.getStartAt().toLocalDate(), date);
+        LocalDateTime start = appointment.getStartAt().plusDays(days);
+        return days >= 0 && days % rule.getStepDays() == 0 && (rule.getUntil() == null || !start.isAfter(rule.getUntil()));
+    }
+
+    private static Appointment occurrence(Appointment series, LocalDateTime start, LocalDateTime end) {
+        return new Appointment()
+                .id(series.getId())
+                .startAt(start)
+                .endAt(end)
+                .organizationId(series.getOrganizationId())
+                .employeeId(series.getEmployeeId())
+                .customer(series.getCustomer())
+                .service(series.getService())
+                .recurrenceRule(series.getRecurrenceRule());
+    }
+}
@@ -0,0 +1,71 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.common.errors.HttpError;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.zalando.problem.Status;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Limits of the unpaged list requests, so that a single request cannot load an unbounded number of rows into memory.
+ * <p>
+ * The range of a date range request must not exceed {@code application.limits.max-range} and a list must not hold more
+ * than {@code application.limits.max-rows} entries. Requests beyond the limits are rejected and have to use the paged
+ * variants, or the streaming endpoints and exports which are bound by the {@link StreamingLimits} instead.
+ */
+@Component
+public class ResultLimits {
+
+    private final Duration maxRange;
+
+    private final int maxRows;
+
+    public ResultLimits(@Value("${application.limits.max-range:92d}") Duration maxRange, @Value("${application.limits.max-rows:5000}") int maxRows) {
+        this.maxRange = maxRange;
+        this.maxRows = maxRows;
+    }
+
+    public int getMaxRows() {
+        return this.maxRows;
+    }
+
+    /**
+     * Check the range of a date range request.
+     *
+     * @param start the start of the range.
+     * @param end   the end of the range.
+     * @throws HttpError with status {@code 400 (Bad Request)} if the range exceeds the limit.
+     */
+    public void checkRange(LocalDateTime start, LocalDateTime end) {
+        if (Duration.between(start, end).compareTo(this.maxRange) > 0) {
+            throw new HttpError(Status.BAD_REQUEST, "range.too.large", "The range from " + start + " until " + end + " exceeds the maximum of " + this.maxRange);
+        }
+    }
+
+    /**
+     * @return the page reading one row more than allowed, so that {@link #checkRows(List)} can tell whether the limit is exceeded.
+     */
+    public Pageable firstRows() {
+        return PageRequest.of(0, this.maxRows + 1);
+    }
+
+    /**
+     * Check the number of rows of a list.
+     *
+     * @param rows the rows, read with {@link #firstRows()}.
+     * @param <T>  the row type.
+     * @return the rows.
+     * @throws HttpError with status {@code 400 (Bad Request)} if there are more rows than allowed.
+     */
+    public <T> List<T> checkRows(List<T> rows) {
+        if (rows.size() > this.maxRows) {
+            throw new HttpError(Status.BAD_REQUEST, "result.too.large", "The result exceeds the maximum of " + this.maxRows + " entries, use the paged request");
+        }
+        return rows;
+    }
+}
@@ -4,6 +4,8 @@ import de.apnmt.appointment.common.repository.ServiceRepository;
 import de.apnmt.appointment.common.service.dto.ServiceDTO;
 import de.apnmt.appointment.common.service.mapper.ServiceEventMapper;
 import de.apnmt.appointment.common.service.mapper.ServiceMapper;
+import de.apnmt.appointment.common.sharding.AllShards;
+import de.apnmt.appointment.common.sharding.ShardKey;
 import de.apnmt.common.TopicConstants;
 import de.apnmt.common.event.ApnmtEvent;
 import de.apnmt.common.event.ApnmtEventType;
@@ -11,14 +13,18 @@ import de.apnmt.common.event.value.ServiceEventDTO;
 import de.apnmt.common.sender.ApnmtEventSender;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
@@ -38,11 +44,48 @@ public class ServiceService {
 
     private final ApnmtEventSender<ServiceEventDTO> sender;
 
-    public ServiceService(ServiceRepository serviceRepository, ServiceMapper serviceMapper, ServiceEventMapper serviceEventMapper, ApnmtEventSender<ServiceEventDTO> sender) {
+    private final OptimisticLockingRetry optimisticLockingRetry;
+
+    private final ApnmtEventCodec eventCodec;
+
+    private final boolean fullUpdates;
+
+    private final boolean deltaUpdates;
+
+    private final String deltaTopic;
+
+    private final EventCoalescer eventCoalescer;
+
+    private final ResultLimits resultLimits;
+
+    private final OrganizationVersionService organizationVersionService;
+
+    public ServiceService(
+            ServiceRepository serviceRepository,
+            ServiceMapper serviceMapper,
+            ServiceEventMapper serviceEventMapper,
+            ApnmtEventSender<ServiceEventDTO> sender,
+            OptimisticLockingRetry optimisticLockingRetry,
+            ApnmtEventCodec eventCodec,
+            @Value("${application.events.full-updates:true}") boolean fullUpdates,
+            @Value("${application.events.delta-updates:false}") boolean deltaUpdates,
+            @Value("${application.events.delta-topic:" + TopicConstants.SERVICE_CHANGED_TOPIC + "-delta}") String deltaTopic,
+            EventCoalescer eventCoalescer,
+            ResultLimits resultLimits,
+            OrganizationVersionService organizationVersionService
+    ) {
         this.serviceRepository = serviceRepository;
         this.serviceMapper = serviceMapper;
         this.serviceEventMapper = serviceEventMapper;
         this.sender = sender;
+        this.optimisticLockingRetry = optimisticLockingRetry;
+        this.eventCodec = eventCodec;
+        this.fullUpdates = fullUpdates;
+        this.deltaUpdates = deltaUpdates;
+        this.deltaTopic = deltaTopic;
+        this.eventCoalescer = eventCoalescer;
+        this.resultLimits = resultLimits;
+        this.organizationVersionService = organizationVersionService;
     }
 
     /**
@@ -51,29 +94,44 @@ public class ServiceService {
      * @param serviceDTO the entity to save.
      * @return the persisted entity.
      */
-    public ServiceDTO save(ServiceDTO serviceDTO) {
+    public ServiceDTO save(@ShardKey ServiceDTO serviceDTO) {
         this.log.debug("Request to save Service : {}", serviceDTO);
         de.apnmt.appointment.common.domain.Service service = this.serviceMapper.toEntity(serviceDTO);
+        if (service.getId() != null) {
+            // full updates overwrite the current state, so they are applied on top of the current version
+            service.setVersion(this.serviceRepository.findById(service.getId()).map(de.apnmt.appointment.common.domain.Service::getVersion).orElse(0L));
+        }
         service = this.serviceRepository.save(service);
-        this.sender.send(TopicConstants.SERVICE_CHANGED_TOPIC, this.createEvent(service, ApnmtEventType.serviceCreated));
+        this.organizationVersionService.servicesChanged(service.getOrganizationId());
+        this.sendEvent(service.getId(), this.createEvent(service, ApnmtEventType.serviceCreated));
         return this.serviceMapper.toDto(service);
     }
 
     /**
      * Partially update a service.
+     * The update runs in its own transaction and is re-applied on the current state if a concurrent update wins the race.
+     * With {@code application.events.delta-updates} the event sent to the delta topic only carries the changed properties
+     * besides id and organizationId, the event sent to the service topic always carries the full state.
      *
      * @param serviceDTO the entity to update partially.
      * @return the persisted entity.
      */
-    public Optional<ServiceDTO> partialUpdate(ServiceDTO serviceDTO) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<ServiceDTO> partialUpdate(@ShardKey ServiceDTO serviceDTO) {
         this.log.debug("Request to partially update Service : {}", serviceDTO);
 
-        return this.serviceRepository.findById(serviceDTO.getId()).map(existingService -> {
+        AtomicReference<ServiceEventDTO> previous = new AtomicReference<>();
+        Optional<de.apnmt.appointment.common.domain.Service> result = this.optimisticLockingRetry.execute("service", () -> this.serviceRepository.findById(serviceDTO.getId()).map(existingService -> {
+            previous.set(this.serviceEventMapper.toDto(existingService));
             this.serviceMapper.partialUpdate(existingService, serviceDTO);
 
+            this.organizationVersionService.servicesChanged(existingService.getOrganizationId());
             return existingService;
-        }).map(this.serviceRepository::save).map(service -> {
-            this.sender.send(TopicConstants.SERVICE_CHANGED_TOPIC, this.createEvent(service, ApnmtEventType.serviceCreated));
+        }).map(this.serviceRepository::save));
+        return result.map(service -> {
+            ServiceEventDTO value = this.serviceEventMapper.toDto(service);
+            ServiceEventDTO delta = this.deltaUpdates ? this.eventCodec.delta(previous.get(), this.serviceEventMapper.toDto(service), "id", "organizationId") : value;
+            this.sendEvent(service.getId(), this.createEvent(value, ApnmtEventType.serviceCreated), this.createEvent(delta, ApnmtEventType.serviceCreated));
             return service;
         }).map(this.serviceMapper::toDto);
     }
@@ -92,14 +150,55 @@ public class ServiceService {
 
     /**
      * Get all the services by organizationId.
+     * Organizations with more services than {@code application.limits.max-rows} have to use the paged variant.
      *
      * @param organizationId the organization id.
      * @return the list of entities.
      */
     @Transactional(readOnly = true)
-    public List<ServiceDTO> findAll(Long organizationId) {
+    public List<ServiceDTO> findAll(@ShardKey Long organizationId) {
         this.log.debug("Request to get all Services for Organization {}", organizationId);
-        return this.serviceRepository.findAllByOrganizationId(organizationId).stream().map(this.serviceMapper::toDto).collect(Collectors.toList());
+        List<de.apnmt.appointment.common.domain.Service> services = this.resultLimits.checkRows(this.serviceRepository.findAllByOrganizationIdOrderById(organizationId, this.resultLimits.firstRows()));
+        return services.stream().map(this.serviceMapper::toDto).collect(Collectors.toList());
+    }
+
+    /**
+     * Get a page of the services by organizationId.
+     *
+     * @param organizationId the organization id.
+     * @param pageable       the pagination information.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<ServiceDTO> findAll(@ShardKey Long organizationId, Pageable pageable) {
+        this.log.debug("Request to get a page of Services for Organization {}", organizationId);
+        return this.serviceRepository.findAllByOrganizationId(organizationId, pageable).map(this.serviceMapper::toDto);
+    }
+
+    /**
+     * Get the services of an organization modified after the given date.
+     *
+     * @param organizationId the organization id.
+     * @param modifiedSince  the date after which the entities were created or modified.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public List<ServiceDTO> findAllModifiedSince(@ShardKey Long organizationId, Instant modifiedSince) {
+        this.log.debug("Request to get all Services for Organization {} modified since {}", organizationId, modifiedSince);
+        return this.resultLimits.checkRows(this.serviceRepository.findAllByOrganizationIdAndLastModifiedDateAfter(organizationId, modifiedSince, this.resultLimits.firstRows())).stream()
+                .map(this.serviceMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Check whether the service exists.
+     *
+     * @param serviceDTO the service, whose organization selects the shard.
+     * @return whether the entity exists.
+     */
+    @Transactional(readOnly = true)
+    public boolean exists(@ShardKey ServiceDTO serviceDTO) {
+        return this.serviceRepository.existsById(serviceDTO.getId());
     }
 
     /**
@@ -128,19 +227,52 @@ public class ServiceService {
         } else {
             event = this.createEvent(new de.apnmt.appointment.common.domain.Service().id(id), ApnmtEventType.serviceDeleted);
         }
-        this.sender.send(TopicConstants.SERVICE_CHANGED_TOPIC, event);
+        this.sendEvent(id, event);
+        maybe.ifPresent(service -> this.organizationVersionService.servicesChanged(service.getOrganizationId()));
         this.serviceRepository.deleteById(id);
     }
 
+    private void sendEvent(Long id, ApnmtEvent<ServiceEventDTO> event) {
+        this.sendEvent(id, event, this.createEvent(event.getValue(), event.getType()));
+    }
+
+    /**
+     * Send an event, coalesced with other events of the same service if a coalescing window is configured.
+     * <p>
+     * The service topic only carries full states, as its consumers would apply the missing properties of a delta as
+     * {@code null}. Deltas are sent to {@code application.events.delta-topic} with {@code application.events.delta-updates},
+     * together with the full states of the other changes, so consumers of the delta topic see every change.
+     * Once all consumers read the delta topic, {@code application.events.full-updates} can be turned off.
+     * Delta values are merged, so the coalesced event still carries every change.
+     *
+     * @param id    the id of the service.
+     * @param event the event carrying the full state.
+     * @param delta the event carrying the changed properties only.
+     */
+    private void sendEvent(Long id, ApnmtEvent<ServiceEventDTO> event, ApnmtEvent<ServiceEventDTO> delta) {
+        if (this.fullUpdates) {
+            this.eventCoalescer.send(this.sender, TopicConstants.SERVICE_CHANGED_TOPIC, id, event);
+        }
+        if (this.deltaUpdates) {
+            this.eventCoalescer.send(this.sender, this.deltaTopic, id, delta, this.eventCodec::merge);
+        }
+    }
+
     private ApnmtEvent<ServiceEventDTO> createEvent(de.apnmt.appointment.common.domain.Service service, ApnmtEventType type) {
-        return new ApnmtEvent<ServiceEventDTO>().timestamp(LocalDateTime.now()).type(type).value(this.serviceEventMapper.toDto(service));
+        return this.createEvent(this.serviceEventMapper.toDto(service), type);
+    }
+
+    private ApnmtEvent<ServiceEventDTO> createEvent(ServiceEventDTO value, ApnmtEventType type) {
+        return new ApnmtEvent<ServiceEventDTO>().timestamp(LocalDateTime.now()).type(type).value(value);
     }
 
     /**
      * Delete all services.
      */
+    @AllShards
     public void deleteAll() {
         log.debug("Request to delete all services");
         serviceRepository.deleteAllByIdGreaterThan(502L);
+        this.organizationVersionService.allChanged();
     }
 }
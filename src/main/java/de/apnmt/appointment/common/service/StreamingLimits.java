@@ -0,0 +1,87 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.common.errors.HttpError;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.zalando.problem.Status;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits of the streaming endpoints and exports.
+ * <p>
+ * A stream holds a read transaction and a pooled connection for as long as the client takes to read it, so at most
+ * {@code application.streaming.max-concurrent} streams run at the same time; further requests are rejected with
+ * {@code 503 (Service Unavailable)} before the stream is opened. The range of a streamed date range must not exceed
+ * {@code application.streaming.max-range}. Rejections are counted in the {@code apnmt.streaming.rejected} metric.
+ */
+@Component
+public class StreamingLimits {
+
+    private static final String REJECTED_METRIC = "apnmt.streaming.rejected";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Semaphore permits;
+
+    private final Duration maxRange;
+
+    public StreamingLimits(
+            MeterRegistry meterRegistry,
+            @Value("${application.streaming.max-concurrent:4}") int maxConcurrent,
+            @Value("${application.streaming.max-range:366d}") Duration maxRange
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+        this.maxRange = maxRange;
+    }
+
+    /**
+     * Check the range of a streamed date range.
+     *
+     * @param start the start of the range.
+     * @param end   the end of the range.
+     * @throws HttpError with status {@code 400 (Bad Request)} if the range exceeds the limit.
+     */
+    public void checkRange(LocalDateTime start, LocalDateTime end) {
+        if (Duration.between(start, end).compareTo(this.maxRange) > 0) {
+            throw new HttpError(Status.BAD_REQUEST, "range.too.large", "The range from " + start + " until " + end + " exceeds the maximum of " + this.maxRange);
+        }
+    }
+
+    /**
+     * Take a permit for a stream. The permit must be released once the stream is closed, or once it is clear that the
+     * stream will never be written.
+     *
+     * @return the permit.
+     * @throws AdmissionRejectedException with status {@code 503 (Service Unavailable)} if the maximum number of streams is running.
+     */
+    public Permit acquire() {
+        if (!this.permits.tryAcquire()) {
+            this.meterRegistry.counter(REJECTED_METRIC).increment();
+            throw new AdmissionRejectedException(Status.SERVICE_UNAVAILABLE, "Too many concurrent streams", Duration.ofSeconds(5));
+        }
+        return new Permit();
+    }
+
+    /**
+     * The permit of a stream, which may be released any number of times and is returned on the first release.
+     */
+    public final class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        public void release() {
+            if (this.released.compareAndSet(false, true)) {
+                StreamingLimits.this.permits.release();
+            }
+        }
+    }
+}
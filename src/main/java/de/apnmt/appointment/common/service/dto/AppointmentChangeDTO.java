@@ -0,0 +1,77 @@
+package de.apnmt.appointment.common.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * An entry of the appointment change feed.
+ */
+public class AppointmentChangeDTO implements Serializable {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private Type type;
+
+    private Long appointmentId;
+
+    private Instant modifiedDate;
+
+    private AppointmentDTO appointment;
+
+    public AppointmentChangeDTO() {
+    }
+
+    public AppointmentChangeDTO(Type type, Long appointmentId, Instant modifiedDate, AppointmentDTO appointment) {
+        this.type = type;
+        this.appointmentId = appointmentId;
+        this.modifiedDate = modifiedDate;
+        this.appointment = appointment;
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getAppointmentId() {
+        return this.appointmentId;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public Instant getModifiedDate() {
+        return this.modifiedDate;
+    }
+
+    public void setModifiedDate(Instant modifiedDate) {
+        this.modifiedDate = modifiedDate;
+    }
+
+    /**
+     * @return the current state of the appointment, {@code null} if it was deleted.
+     */
+    public AppointmentDTO getAppointment() {
+        return this.appointment;
+    }
+
+    public void setAppointment(AppointmentDTO appointment) {
+        this.appointment = appointment;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "AppointmentChangeDTO{" +
+                "type=" + getType() +
+                ", appointmentId=" + getAppointmentId() +
+                ", modifiedDate='" + getModifiedDate() + "'" +
+                "}";
+    }
+}
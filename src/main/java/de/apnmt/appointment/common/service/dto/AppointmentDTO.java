@@ -1,7 +1,9 @@
 package de.apnmt.appointment.common.service.dto;
 
 import de.apnmt.appointment.common.domain.Appointment;
+import de.apnmt.appointment.common.sharding.OrganizationScoped;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -10,7 +12,7 @@ import java.util.Objects;
 /**
  * A DTO for the {@link Appointment} entity.
  */
-public class AppointmentDTO implements Serializable {
+public class AppointmentDTO implements Serializable, OrganizationScoped {
 
     private static final long serialVersionUID = 4134112751746993379L;
     private Long id;
@@ -31,6 +33,9 @@ public class AppointmentDTO implements Serializable {
 
     private ServiceDTO service;
 
+    @Valid
+    private RecurrenceRuleDTO recurrenceRule;
+
     public Long getId() {
         return this.id;
     }
@@ -55,6 +60,7 @@ public class AppointmentDTO implements Serializable {
         this.endAt = endAt;
     }
 
+    @Override
     public Long getOrganizationId() {
         return this.organizationId;
     }
@@ -87,6 +93,14 @@ public class AppointmentDTO implements Serializable {
         this.service = service;
     }
 
+    public RecurrenceRuleDTO getRecurrenceRule() {
+        return this.recurrenceRule;
+    }
+
+    public void setRecurrenceRule(RecurrenceRuleDTO recurrenceRule) {
+        this.recurrenceRule = recurrenceRule;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -119,6 +133,7 @@ public class AppointmentDTO implements Serializable {
                 ", employeeId=" + getEmployeeId() +
                 ", customer=" + getCustomer() +
                 ", service=" + getService() +
+                ", recurrenceRule=" + getRecurrenceRule() +
                 "}";
     }
 }
@@ -0,0 +1,100 @@
+package de.apnmt.appointment.common.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Count, booked minutes and revenue of the appointments of an employee, a service or a day.
+ * Only the field the appointments are grouped by is set.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AppointmentStatisticsDTO implements Serializable {
+
+    private Long employeeId;
+
+    private Long serviceId;
+
+    private LocalDate date;
+
+    private long appointments;
+
+    private long bookedMinutes;
+
+    private double revenue;
+
+    public Long getEmployeeId() {
+        return this.employeeId;
+    }
+
+    public void setEmployeeId(Long employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public Long getServiceId() {
+        return this.serviceId;
+    }
+
+    public void setServiceId(Long serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    public LocalDate getDate() {
+        return this.date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public long getAppointments() {
+        return this.appointments;
+    }
+
+    public void setAppointments(long appointments) {
+        this.appointments = appointments;
+    }
+
+    public long getBookedMinutes() {
+        return this.bookedMinutes;
+    }
+
+    public void setBookedMinutes(long bookedMinutes) {
+        this.bookedMinutes = bookedMinutes;
+    }
+
+    public double getRevenue() {
+        return this.revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+
+    /**
+     * Add appointments to the statistics.
+     *
+     * @param appointments  the number of appointments.
+     * @param bookedMinutes the minutes booked by the appointments.
+     * @param revenue       the summed cost of their services.
+     */
+    public void add(long appointments, long bookedMinutes, double revenue) {
+        this.appointments += appointments;
+        this.bookedMinutes += bookedMinutes;
+        this.revenue += revenue;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "AppointmentStatisticsDTO{" +
+            "employeeId=" + getEmployeeId() +
+            ", serviceId=" + getServiceId() +
+            ", date=" + getDate() +
+            ", appointments=" + getAppointments() +
+            ", bookedMinutes=" + getBookedMinutes() +
+            ", revenue=" + getRevenue() +
+            "}";
+    }
+}
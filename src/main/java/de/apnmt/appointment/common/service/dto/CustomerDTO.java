@@ -1,6 +1,7 @@
 package de.apnmt.appointment.common.service.dto;
 
 import de.apnmt.appointment.common.domain.Customer;
+import de.apnmt.appointment.common.sharding.OrganizationScoped;
 
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
@@ -10,7 +11,7 @@ import java.util.Objects;
 /**
  * A DTO for the {@link Customer} entity.
  */
-public class CustomerDTO implements Serializable {
+public class CustomerDTO implements Serializable, OrganizationScoped {
 
     private Long id;
 
@@ -80,6 +81,7 @@ public class CustomerDTO implements Serializable {
         this.birthday = birthday;
     }
 
+    @Override
     public Long getOrganizationId() {
         return organizationId;
     }
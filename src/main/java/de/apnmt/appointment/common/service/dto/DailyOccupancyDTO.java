@@ -0,0 +1,71 @@
+package de.apnmt.appointment.common.service.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * The number and booked minutes of the single appointments of an employee starting on a day.
+ */
+public class DailyOccupancyDTO implements Serializable {
+
+    private Long employeeId;
+
+    private LocalDate date;
+
+    private long appointments;
+
+    private long bookedMinutes;
+
+    public DailyOccupancyDTO() {
+    }
+
+    public DailyOccupancyDTO(Long employeeId, LocalDate date, long appointments, long bookedMinutes) {
+        this.employeeId = employeeId;
+        this.date = date;
+        this.appointments = appointments;
+        this.bookedMinutes = bookedMinutes;
+    }
+
+    public Long getEmployeeId() {
+        return this.employeeId;
+    }
+
+    public void setEmployeeId(Long employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public LocalDate getDate() {
+        return this.date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public long getAppointments() {
+        return this.appointments;
+    }
+
+    public void setAppointments(long appointments) {
+        this.appointments = appointments;
+    }
+
+    public long getBookedMinutes() {
+        return this.bookedMinutes;
+    }
+
+    public void setBookedMinutes(long bookedMinutes) {
+        this.bookedMinutes = bookedMinutes;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "DailyOccupancyDTO{" +
+            "employeeId=" + getEmployeeId() +
+            ", date=" + getDate() +
+            ", appointments=" + getAppointments() +
+            ", bookedMinutes=" + getBookedMinutes() +
+            "}";
+    }
+}
@@ -0,0 +1,116 @@
+package de.apnmt.appointment.common.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of a CSV import.
+ */
+public class ImportResultDTO implements Serializable {
+
+    private String importId;
+
+    private long processed;
+
+    private long imported;
+
+    private long rejected;
+
+    private long skipped;
+
+    private final List<String> errors = new ArrayList<>();
+
+    private boolean completed;
+
+    private String failure;
+
+    /**
+     * @return the id of the import, which resumes an aborted import after its last committed batch.
+     */
+    public String getImportId() {
+        return this.importId;
+    }
+
+    public void setImportId(String importId) {
+        this.importId = importId;
+    }
+
+    /**
+     * @return the number of data rows processed and committed.
+     */
+    public long getProcessed() {
+        return this.processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getImported() {
+        return this.imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getRejected() {
+        return this.rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    /**
+     * @return the number of valid rows not imported, as their entity already exists, e.g. customers with a known mail.
+     */
+    public long getSkipped() {
+        return this.skipped;
+    }
+
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    /**
+     * @return the reasons of the first rejected rows.
+     */
+    public List<String> getErrors() {
+        return this.errors;
+    }
+
+    public boolean isCompleted() {
+        return this.completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    /**
+     * @return the reason the import was aborted, {@code null} if it was not.
+     */
+    public String getFailure() {
+        return this.failure;
+    }
+
+    public void setFailure(String failure) {
+        this.failure = failure;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ImportResultDTO{" +
+                "importId='" + getImportId() + "'" +
+                ", processed=" + getProcessed() +
+                ", imported=" + getImported() +
+                ", rejected=" + getRejected() +
+                ", skipped=" + getSkipped() +
+                ", completed=" + isCompleted() +
+                ", failure='" + getFailure() + "'" +
+                "}";
+    }
+}
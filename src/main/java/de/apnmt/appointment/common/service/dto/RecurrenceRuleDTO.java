@@ -0,0 +1,107 @@
+package de.apnmt.appointment.common.service.dto;
+
+import de.apnmt.appointment.common.domain.RecurrenceRule;
+import de.apnmt.appointment.common.domain.enumeration.RecurrenceFrequency;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A DTO for the {@link RecurrenceRule} entity.
+ */
+public class RecurrenceRuleDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    @NotNull
+    private RecurrenceFrequency frequency;
+
+    @NotNull
+    @Min(value = 1)
+    private Integer interval;
+
+    private LocalDateTime until;
+
+    private Set<LocalDate> exceptions = new HashSet<>();
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public RecurrenceFrequency getFrequency() {
+        return this.frequency;
+    }
+
+    public void setFrequency(RecurrenceFrequency frequency) {
+        this.frequency = frequency;
+    }
+
+    public Integer getInterval() {
+        return this.interval;
+    }
+
+    public void setInterval(Integer interval) {
+        this.interval = interval;
+    }
+
+    public LocalDateTime getUntil() {
+        return this.until;
+    }
+
+    public void setUntil(LocalDateTime until) {
+        this.until = until;
+    }
+
+    public Set<LocalDate> getExceptions() {
+        return this.exceptions;
+    }
+
+    public void setExceptions(Set<LocalDate> exceptions) {
+        this.exceptions = exceptions;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RecurrenceRuleDTO)) {
+            return false;
+        }
+
+        RecurrenceRuleDTO recurrenceRuleDTO = (RecurrenceRuleDTO) o;
+        if (this.id == null) {
+            return false;
+        }
+        return Objects.equals(this.id, recurrenceRuleDTO.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RecurrenceRuleDTO{" +
+                "id=" + getId() +
+                ", frequency='" + getFrequency() + "'" +
+                ", interval=" + getInterval() +
+                ", until='" + getUntil() + "'" +
+                ", exceptions=" + getExceptions() +
+                "}";
+    }
+}
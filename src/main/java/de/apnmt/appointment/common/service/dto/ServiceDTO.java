@@ -1,6 +1,7 @@
 package de.apnmt.appointment.common.service.dto;
 
 import de.apnmt.appointment.common.domain.Service;
+import de.apnmt.appointment.common.sharding.OrganizationScoped;
 
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
@@ -9,7 +10,7 @@ import java.util.Objects;
 /**
  * A DTO for the {@link Service} entity.
  */
-public class ServiceDTO implements Serializable {
+public class ServiceDTO implements Serializable, OrganizationScoped {
 
     private Long id;
 
@@ -68,6 +69,7 @@ public class ServiceDTO implements Serializable {
         this.cost = cost;
     }
 
+    @Override
     public Long getOrganizationId() {
         return organizationId;
     }
@@ -8,7 +8,7 @@ import org.mapstruct.Mapping;
 /**
  * Mapper for the entity {@link Appointment} and its DTO {@link AppointmentDTO}.
  */
-@Mapper(componentModel = "spring", uses = { CustomerMapper.class, ServiceMapper.class })
+@Mapper(componentModel = "spring", uses = { CustomerMapper.class, ServiceMapper.class, RecurrenceRuleMapper.class })
 public interface AppointmentMapper extends EntityMapper<AppointmentDTO, Appointment> {
     @Mapping(target = "customer", source = "customer")
     @Mapping(target = "service", source = "service", qualifiedByName = "id")
@@ -0,0 +1,12 @@
+package de.apnmt.appointment.common.service.mapper;
+
+import de.apnmt.appointment.common.domain.RecurrenceRule;
+import de.apnmt.appointment.common.service.dto.RecurrenceRuleDTO;
+import org.mapstruct.Mapper;
+
+/**
+ * Mapper for the entity {@link RecurrenceRule} and its DTO {@link RecurrenceRuleDTO}.
+ */
+@Mapper(componentModel = "spring", uses = {})
+public interface RecurrenceRuleMapper extends EntityMapper<RecurrenceRuleDTO, RecurrenceRule> {
+}
@@ -0,0 +1,17 @@
+package de.apnmt.appointment.common.sharding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method working on all organizations, like scheduled jobs and bulk deletions.
+ * If no organization or shard is set, the method is invoked once per shard.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AllShards {
+}
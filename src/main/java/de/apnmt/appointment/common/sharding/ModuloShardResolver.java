@@ -0,0 +1,33 @@
+package de.apnmt.appointment.common.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Default {@link ShardResolver}, placing organizations on the shards by their id modulo the number of shards,
+ * unless an organization is explicitly assigned to a shard.
+ */
+public class ModuloShardResolver implements ShardResolver {
+
+    private final List<String> shards;
+
+    private final Map<Long, String> assignments;
+
+    public ModuloShardResolver(Collection<String> shards, Map<Long, String> assignments) {
+        this.shards = new ArrayList<>(shards);
+        Collections.sort(this.shards);
+        this.assignments = assignments;
+    }
+
+    @Override
+    public String resolve(Long organizationId) {
+        String assigned = this.assignments.get(organizationId);
+        if (assigned != null) {
+            return assigned;
+        }
+        return this.shards.get((int) Math.floorMod(organizationId, (long) this.shards.size()));
+    }
+}
@@ -0,0 +1,9 @@
+package de.apnmt.appointment.common.sharding;
+
+/**
+ * An object belonging to an organization.
+ */
+public interface OrganizationScoped {
+
+    Long getOrganizationId();
+}
@@ -0,0 +1,34 @@
+package de.apnmt.appointment.common.sharding;
+
+import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
+
+import javax.sql.DataSource;
+
+/**
+ * Hibernate connection provider treating every shard as a tenant database.
+ * <p>
+ * Hibernate keeps the state of the id generators per tenant, so the blocks of ids fetched from the
+ * {@code sequence_generator} of one shard are never used for entities inserted into another shard.
+ */
+public class ShardConnectionProvider extends AbstractDataSourceBasedMultiTenantConnectionProviderImpl {
+
+    private final ShardRoutingDataSource dataSource;
+
+    public ShardConnectionProvider(ShardRoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    protected DataSource selectAnyDataSource() {
+        return this.selectDataSource(this.dataSource.getDefaultShard());
+    }
+
+    @Override
+    protected DataSource selectDataSource(String shard) {
+        DataSource shardDataSource = this.dataSource.getShards().get(shard);
+        if (shardDataSource == null) {
+            throw new IllegalStateException("Unknown shard " + shard);
+        }
+        return shardDataSource;
+    }
+}
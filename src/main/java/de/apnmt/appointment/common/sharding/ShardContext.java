@@ -0,0 +1,106 @@
+package de.apnmt.appointment.common.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the id of the organization whose shard the current thread works on,
+ * or the name of the shard for work spanning all organizations of a shard.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Long> ORGANIZATION_ID = new ThreadLocal<>();
+
+    private static final ThreadLocal<String> SHARD = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * @return the id of the current organization, or {@code null} if none is set.
+     */
+    public static Long getOrganizationId() {
+        return ORGANIZATION_ID.get();
+    }
+
+    /**
+     * @return the name of the current shard, or {@code null} if none is set.
+     */
+    public static String getShard() {
+        return SHARD.get();
+    }
+
+    /**
+     * @return whether an organization or a shard is set.
+     */
+    public static boolean isBound() {
+        return ORGANIZATION_ID.get() != null || SHARD.get() != null;
+    }
+
+    /**
+     * Run the given work on the shard of the organization, restoring the previous organization afterwards.
+     *
+     * @param organizationId the id of the organization.
+     * @param work           the work to run.
+     * @param <T>            the result type.
+     * @return the result of the work.
+     */
+    public static <T> T callWithOrganization(Long organizationId, Supplier<T> work) {
+        Long previous = bind(organizationId);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Run the given work on the named shard, without an organization, restoring the previous state afterwards.
+     *
+     * @param shard the name of the shard.
+     * @param work  the work to run.
+     * @param <T>   the result type.
+     * @return the result of the work.
+     */
+    public static <T> T callOnShard(String shard, Supplier<T> work) {
+        Long previousOrganizationId = bind(null);
+        String previousShard = bindShard(shard);
+        try {
+            return work.get();
+        } finally {
+            restoreShard(previousShard);
+            restore(previousOrganizationId);
+        }
+    }
+
+    static Long bind(Long organizationId) {
+        Long previous = ORGANIZATION_ID.get();
+        if (organizationId == null) {
+            ORGANIZATION_ID.remove();
+        } else {
+            ORGANIZATION_ID.set(organizationId);
+        }
+        return previous;
+    }
+
+    static void restore(Long previous) {
+        if (previous == null) {
+            ORGANIZATION_ID.remove();
+        } else {
+            ORGANIZATION_ID.set(previous);
+        }
+    }
+
+    static String bindShard(String shard) {
+        String previous = SHARD.get();
+        SHARD.set(shard);
+        return previous;
+    }
+
+    static void restoreShard(String previous) {
+        if (previous == null) {
+            SHARD.remove();
+        } else {
+            SHARD.set(previous);
+        }
+    }
+}
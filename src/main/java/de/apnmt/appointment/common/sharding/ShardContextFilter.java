@@ -0,0 +1,40 @@
+package de.apnmt.appointment.common.sharding;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Sets the {@link ShardContext} for the whole request from the {@code X-Organization-Id} header,
+ * which lets clients route requests addressing entities by id only, like {@code GET /api/appointments/:id}.
+ */
+public class ShardContextFilter extends OncePerRequestFilter {
+
+    public static final String ORGANIZATION_ID_HEADER = "X-Organization-Id";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(ORGANIZATION_ID_HEADER);
+        if (header == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long organizationId;
+        try {
+            organizationId = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid " + ORGANIZATION_ID_HEADER + " header");
+            return;
+        }
+        Long previous = ShardContext.bind(organizationId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package de.apnmt.appointment.common.sharding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the service method parameter holding the organization whose shard the method works on.
+ * The parameter is either the organization id or an {@link OrganizationScoped} object.
+ */
+@Documented
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+}
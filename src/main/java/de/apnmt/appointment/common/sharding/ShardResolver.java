@@ -0,0 +1,14 @@
+package de.apnmt.appointment.common.sharding;
+
+/**
+ * Maps an organization to the name of the shard holding its data.
+ */
+@FunctionalInterface
+public interface ShardResolver {
+
+    /**
+     * @param organizationId the id of the organization.
+     * @return the name of its shard.
+     */
+    String resolve(Long organizationId);
+}
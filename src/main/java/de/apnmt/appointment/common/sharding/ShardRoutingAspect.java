@@ -0,0 +1,109 @@
+package de.apnmt.appointment.common.sharding;
+
+import de.apnmt.common.errors.HttpError;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.zalando.problem.Status;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sets the {@link ShardContext} from the {@link ShardKey} parameter of the service methods.
+ * It runs before the transaction is started, as the shard must be known when the connection is acquired.
+ * <p>
+ * Methods without an organization, like the ones addressing entities by id only, are rejected unless the organization
+ * was set before, e.g. from the {@code X-Organization-Id} header, as they would silently work on the default shard.
+ * Methods annotated with {@link AllShards} are invoked once per shard instead.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ShardRoutingAspect {
+
+    private static final int NO_SHARD_KEY = -1;
+
+    private final Map<Method, Integer> shardKeyIndexes = new ConcurrentHashMap<>();
+
+    private final List<String> shards;
+
+    public ShardRoutingAspect(Collection<String> shards) {
+        this.shards = new ArrayList<>(shards);
+    }
+
+    @Around("execution(public * de.apnmt.appointment.common.service.*Service.*(..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Long organizationId = this.findOrganizationId(joinPoint);
+        if (organizationId == null) {
+            if (ShardContext.isBound()) {
+                return joinPoint.proceed();
+            }
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            if (method.isAnnotationPresent(AllShards.class)) {
+                return this.proceedOnAllShards(joinPoint);
+            }
+            throw new HttpError(Status.BAD_REQUEST, "organization.required",
+                    "The organization is unknown, set the " + ShardContextFilter.ORGANIZATION_ID_HEADER + " header");
+        }
+        if (organizationId.equals(ShardContext.getOrganizationId())) {
+            return joinPoint.proceed();
+        }
+        Long previous = ShardContext.bind(organizationId);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    private Object proceedOnAllShards(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = null;
+        for (String shard : this.shards) {
+            Long previousOrganizationId = ShardContext.bind(null);
+            String previousShard = ShardContext.bindShard(shard);
+            try {
+                result = joinPoint.proceed();
+            } finally {
+                ShardContext.restoreShard(previousShard);
+                ShardContext.restore(previousOrganizationId);
+            }
+        }
+        return result;
+    }
+
+    private Long findOrganizationId(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        int index = this.shardKeyIndexes.computeIfAbsent(method, ShardRoutingAspect::findShardKeyIndex);
+        if (index == NO_SHARD_KEY) {
+            return null;
+        }
+        Object arg = joinPoint.getArgs()[index];
+        if (arg instanceof Long) {
+            return (Long) arg;
+        }
+        if (arg instanceof OrganizationScoped) {
+            return ((OrganizationScoped) arg).getOrganizationId();
+        }
+        return null;
+    }
+
+    private static int findShardKeyIndex(Method method) {
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof ShardKey) {
+                    return i;
+                }
+            }
+        }
+        return NO_SHARD_KEY;
+    }
+}
@@ -0,0 +1,71 @@
+package de.apnmt.appointment.common.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link DataSource} routing every connection to the shard of the organization or the shard set in the {@link ShardContext},
+ * or to the default shard if there is none.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Map<String, DataSource> shards;
+
+    private final String defaultShard;
+
+    private final ShardResolver shardResolver;
+
+    public ShardRoutingDataSource(Map<String, DataSource> shards, String defaultShard, ShardResolver shardResolver) {
+        this.shards = Collections.unmodifiableMap(shards);
+        this.defaultShard = defaultShard;
+        this.shardResolver = shardResolver;
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(defaultShard));
+        setLenientFallback(false);
+    }
+
+    /**
+     * @return the data sources of all shards by shard name.
+     */
+    public Map<String, DataSource> getShards() {
+        return this.shards;
+    }
+
+    /**
+     * @return the name of the default shard.
+     */
+    public String getDefaultShard() {
+        return this.defaultShard;
+    }
+
+    /**
+     * @return the name of the shard the current thread works on, the default shard if none is set.
+     */
+    public String getCurrentShard() {
+        String shard = (String) this.determineCurrentLookupKey();
+        return shard == null ? this.defaultShard : shard;
+    }
+
+    /**
+     * Close the data sources of all shards.
+     *
+     * @throws Exception if a data source cannot be closed.
+     */
+    public void close() throws Exception {
+        for (DataSource shard : this.shards.values()) {
+            if (shard instanceof AutoCloseable) {
+                ((AutoCloseable) shard).close();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long organizationId = ShardContext.getOrganizationId();
+        return organizationId == null ? ShardContext.getShard() : this.shardResolver.resolve(organizationId);
+    }
+}
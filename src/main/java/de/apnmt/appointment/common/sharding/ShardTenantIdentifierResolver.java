@@ -0,0 +1,26 @@
+package de.apnmt.appointment.common.sharding;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * Resolves the Hibernate tenant of a new session to the shard set in the {@link ShardContext}.
+ * The shard is fixed for the lifetime of the session, so sessions must not span requests to several organizations.
+ */
+public class ShardTenantIdentifierResolver implements CurrentTenantIdentifierResolver {
+
+    private final ShardRoutingDataSource dataSource;
+
+    public ShardTenantIdentifierResolver(ShardRoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return this.dataSource.getCurrentShard();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
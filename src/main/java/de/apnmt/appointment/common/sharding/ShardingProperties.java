@@ -0,0 +1,106 @@
+package de.apnmt.appointment.common.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Properties of the per-organization database shards.
+ * <p>
+ * Properties are configured in the {@code application.yml} file under {@code application.sharding}.
+ */
+@ConfigurationProperties(prefix = "application.sharding", ignoreUnknownFields = false)
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    private String defaultShard;
+
+    private final Map<String, Shard> shards = new LinkedHashMap<>();
+
+    private final Map<Long, String> organizations = new HashMap<>();
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the shard used when no organization is known, the first configured shard if not set.
+     */
+    public String getDefaultShard() {
+        return this.defaultShard != null ? this.defaultShard : this.shards.keySet().iterator().next();
+    }
+
+    public void setDefaultShard(String defaultShard) {
+        this.defaultShard = defaultShard;
+    }
+
+    public Map<String, Shard> getShards() {
+        return this.shards;
+    }
+
+    /**
+     * @return explicit shard assignments by organization id, overriding the default placement.
+     */
+    public Map<Long, String> getOrganizations() {
+        return this.organizations;
+    }
+
+    public static class Shard {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private String driverClassName;
+
+        private final Map<String, String> hikari = new LinkedHashMap<>();
+
+        public String getUrl() {
+            return this.url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return this.username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return this.password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public String getDriverClassName() {
+            return this.driverClassName;
+        }
+
+        public void setDriverClassName(String driverClassName) {
+            this.driverClassName = driverClassName;
+        }
+
+        /**
+         * @return the pool settings of the shard, overriding the ones of {@code spring.datasource.hikari}.
+         */
+        public Map<String, String> getHikari() {
+            return this.hikari;
+        }
+    }
+}
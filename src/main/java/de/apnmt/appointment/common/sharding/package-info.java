@@ -0,0 +1,4 @@
+/**
+ * Routing of the data access to per-organization database shards.
+ */
+package de.apnmt.appointment.common.sharding;
@@ -1,9 +1,19 @@
 package de.apnmt.appointment.common.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import de.apnmt.appointment.common.domain.Appointment;
-import de.apnmt.appointment.common.repository.AppointmentRepository;
+import de.apnmt.appointment.common.service.AppointmentChangeFeedService;
 import de.apnmt.appointment.common.service.AppointmentService;
+import de.apnmt.appointment.common.service.BookingAdmissionControl;
+import de.apnmt.appointment.common.service.IdempotencyService;
+import de.apnmt.appointment.common.service.OrganizationVersionService;
+import de.apnmt.appointment.common.service.StreamingLimits;
+import de.apnmt.appointment.common.service.dto.AppointmentChangeDTO;
 import de.apnmt.appointment.common.service.dto.AppointmentDTO;
+import de.apnmt.appointment.common.web.rest.vm.AppointmentChangeFeedVM;
+import de.apnmt.appointment.common.web.rest.vm.AppointmentPageVM;
+import de.apnmt.appointment.common.web.rest.vm.CompactAppointmentsVM;
 import de.apnmt.common.errors.BadRequestAlertException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,16 +21,23 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
@@ -37,35 +54,95 @@ public class AppointmentResource {
 
     private static final String ENTITY_NAME = "appointmentServiceAppointment";
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_CHANGE_FEED_SIZE = 1000;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final AppointmentService appointmentService;
 
-    private final AppointmentRepository appointmentRepository;
+    private final ObjectMapper objectMapper;
+
+    private final IdempotencyService idempotencyService;
+
+    private final AppointmentChangeFeedService appointmentChangeFeedService;
+
+    private final OrganizationVersionService organizationVersionService;
+
+    private final BookingAdmissionControl bookingAdmissionControl;
+
+    private final StreamingLimits streamingLimits;
 
-    public AppointmentResource(AppointmentService appointmentService, AppointmentRepository appointmentRepository) {
+    public AppointmentResource(
+            AppointmentService appointmentService,
+            ObjectMapper objectMapper,
+            IdempotencyService idempotencyService,
+            AppointmentChangeFeedService appointmentChangeFeedService,
+            OrganizationVersionService organizationVersionService,
+            BookingAdmissionControl bookingAdmissionControl,
+            StreamingLimits streamingLimits
+    ) {
         this.appointmentService = appointmentService;
-        this.appointmentRepository = appointmentRepository;
+        this.objectMapper = objectMapper;
+        this.idempotencyService = idempotencyService;
+        this.appointmentChangeFeedService = appointmentChangeFeedService;
+        this.organizationVersionService = organizationVersionService;
+        this.bookingAdmissionControl = bookingAdmissionControl;
+        this.streamingLimits = streamingLimits;
     }
 
     /**
      * {@code POST  /appointments} : Create a new appointment.
+     * <p>
+     * If the request carries an {@code Idempotency-Key} header, a retry with the same key returns the result of the first request
+     * (marked by the {@code Idempotent-Replayed} header) without booking again. Keys are scoped by organization and bound
+     * to the request body.
+     * The request is subject to the {@link BookingAdmissionControl booking admission control} of the organization,
+     * except for replays.
      *
      * @param appointmentDTO the appointmentDTO to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new appointmentDTO, or with status {@code 400 (Bad Request)} if the appointment has already an ID.
+     * @param idempotencyKey the optional idempotency key chosen by the client.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new appointmentDTO, or with status {@code 400 (Bad Request)} if the appointment has already an ID,
+     * or with status {@code 409 (Conflict)} if the slot is not available, or with status {@code 422 (Unprocessable Entity)} if the idempotency key was used with a different request,
+     * or with status {@code 429 (Too Many Requests)} if the organization exceeded its booking rate.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/appointments")
-    public ResponseEntity<AppointmentDTO> createAppointment(@Valid @RequestBody AppointmentDTO appointmentDTO) throws URISyntaxException {
+    public ResponseEntity<AppointmentDTO> createAppointment(
+            @Valid @RequestBody AppointmentDTO appointmentDTO,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) throws URISyntaxException {
         this.log.debug("REST request to save Appointment : {}", appointmentDTO);
         if (appointmentDTO.getId() != null) {
             throw new BadRequestAlertException("A new appointment cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        AppointmentDTO result = this.appointmentService.save(appointmentDTO);
+        AppointmentDTO result;
+        boolean replayed = false;
+        if (idempotencyKey == null) {
+            result = this.bookingAdmissionControl.execute(appointmentDTO.getOrganizationId(), () -> this.appointmentService.save(appointmentDTO));
+        } else {
+            // a replay books nothing, so it neither uses up the rate of the organization nor waits for a permit
+            IdempotencyService.Result idempotentResult = this.idempotencyService.findReplay(appointmentDTO.getOrganizationId(), idempotencyKey, appointmentDTO)
+                    .orElseGet(() -> this.bookingAdmissionControl.execute(
+                            appointmentDTO.getOrganizationId(),
+                            () -> this.idempotencyService.execute(appointmentDTO.getOrganizationId(), idempotencyKey, appointmentDTO, () -> this.appointmentService.save(appointmentDTO))
+                    ));
+            result = idempotentResult.getAppointment();
+            replayed = idempotentResult.isReplayed();
+        }
+        HttpHeaders headers = HeaderUtil.createEntityCreationAlert(this.applicationName, true, ENTITY_NAME, result.getId().toString());
+        if (replayed) {
+            headers.add(IDEMPOTENT_REPLAYED_HEADER, Boolean.TRUE.toString());
+        }
         return ResponseEntity
                 .created(new URI("/api/appointments/" + result.getId()))
-                .headers(HeaderUtil.createEntityCreationAlert(this.applicationName, true, ENTITY_NAME, result.getId().toString()))
+                .headers(headers)
                 .body(result);
     }
 
@@ -76,6 +153,8 @@ public class AppointmentResource {
      * @param appointmentDTO the appointmentDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated appointmentDTO,
      * or with status {@code 400 (Bad Request)} if the appointmentDTO is not valid,
+     * or with status {@code 409 (Conflict)} if the slot is not available,
+     * or with status {@code 429 (Too Many Requests)} if the organization exceeded its booking rate,
      * or with status {@code 500 (Internal Server Error)} if the appointmentDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -92,11 +171,11 @@ public class AppointmentResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!this.appointmentRepository.existsById(id)) {
+        if (!this.appointmentService.exists(appointmentDTO)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
-        AppointmentDTO result = this.appointmentService.save(appointmentDTO);
+        AppointmentDTO result = this.bookingAdmissionControl.execute(appointmentDTO.getOrganizationId(), () -> this.appointmentService.save(appointmentDTO));
         return ResponseEntity
                 .ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(this.applicationName, true, ENTITY_NAME, appointmentDTO.getId().toString()))
@@ -119,35 +198,213 @@ public class AppointmentResource {
 
     /**
      * {@code GET  /appointments/organization/:organizationId/employee/:employeeId} : get all the appointments for Employee and Organization.
+     * <p>
+     * The response carries an ETag of the current version of the appointments of the Organization and of the embedded
+     * customers and services, a request with a matching {@code If-None-Match} header is answered with
+     * {@code 304 (Not Modified)} without loading them.
      *
      * @param organizationId the id of the Organization.
      * @param employeeId     the id of the Employee.
      * @param start          start Date.
      * @param end            the end Date.
+     * @param request        the request, checked for {@code If-None-Match}.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of appointments in body.
      */
     @GetMapping("/appointments/organization/{organizationId}/employee/{employeeId}")
-    public ResponseEntity<List<AppointmentDTO>> getAllAppointments(@PathVariable Long organizationId, @PathVariable Long employeeId, @RequestParam LocalDateTime start, @RequestParam LocalDateTime end) {
+    public ResponseEntity<List<AppointmentDTO>> getAllAppointments(
+            @PathVariable Long organizationId,
+            @PathVariable Long employeeId,
+            @RequestParam LocalDateTime start,
+            @RequestParam LocalDateTime end,
+            WebRequest request
+    ) {
         this.log.debug("Request to get all Appointments for Organization {}, Employee {}, between {} and {}", organizationId, employeeId, start, end);
+        if (request.checkNotModified(this.organizationVersionService.getAppointmentsETag(organizationId))) {
+            return null;
+        }
         List<AppointmentDTO> appointments = this.appointmentService.findAllForOrganizationAndEmployee(organizationId, employeeId, start, end);
         return ResponseEntity.ok().body(appointments);
     }
 
     /**
      * {@code GET  /appointments/organization/:organizationId} : get all the appointments for Organization.
+     * <p>
+     * The response carries an ETag of the current version of the appointments of the Organization and of the embedded
+     * customers and services, a request with a matching {@code If-None-Match} header is answered with
+     * {@code 304 (Not Modified)} without loading them.
      *
      * @param organizationId the id of the Organization.
      * @param start          start Date.
      * @param end            the end Date.
+     * @param request        the request, checked for {@code If-None-Match}.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of appointments in body.
      */
     @GetMapping("/appointments/organization/{organizationId}")
-    public ResponseEntity<List<AppointmentDTO>> getAllAppointments(@PathVariable Long organizationId, @RequestParam LocalDateTime start, @RequestParam LocalDateTime end) {
+    public ResponseEntity<List<AppointmentDTO>> getAllAppointments(@PathVariable Long organizationId, @RequestParam LocalDateTime start, @RequestParam LocalDateTime end, WebRequest request) {
         this.log.debug("Request to get all Appointments for Organization {}, between {} and {}", organizationId, start, end);
+        if (request.checkNotModified(this.organizationVersionService.getAppointmentsETag(organizationId))) {
+            return null;
+        }
         List<AppointmentDTO> appointments = this.appointmentService.findAllForOrganization(organizationId, start, end);
         return ResponseEntity.ok().body(appointments);
     }
 
+    /**
+     * {@code GET  /appointments/organization/:organizationId/employee/:employeeId/compact} : get all the appointments for Employee and Organization
+     * in the compact representation, which sends every customer and service once.
+     *
+     * @param organizationId the id of the Organization.
+     * @param employeeId     the id of the Employee.
+     * @param start          start Date.
+     * @param end            the end Date.
+     * @param request        the request, checked for {@code If-None-Match}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the compact list of appointments in body.
+     */
+    @GetMapping("/appointments/organization/{organizationId}/employee/{employeeId}/compact")
+    public ResponseEntity<CompactAppointmentsVM> getAllAppointmentsCompact(
+            @PathVariable Long organizationId,
+            @PathVariable Long employeeId,
+            @RequestParam LocalDateTime start,
+            @RequestParam LocalDateTime end,
+            WebRequest request
+    ) {
+        this.log.debug("REST request to get all compact Appointments for Organization {}, Employee {}, between {} and {}", organizationId, employeeId, start, end);
+        if (request.checkNotModified(this.organizationVersionService.getAppointmentsETag(organizationId))) {
+            return null;
+        }
+        List<AppointmentDTO> appointments = this.appointmentService.findAllForOrganizationAndEmployee(organizationId, employeeId, start, end);
+        return ResponseEntity.ok().body(new CompactAppointmentsVM(organizationId, appointments));
+    }
+
+    /**
+     * {@code GET  /appointments/organization/:organizationId/compact} : get all the appointments for Organization
+     * in the compact representation, which sends every customer and service once.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          start Date.
+     * @param end            the end Date.
+     * @param request        the request, checked for {@code If-None-Match}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the compact list of appointments in body.
+     */
+    @GetMapping("/appointments/organization/{organizationId}/compact")
+    public ResponseEntity<CompactAppointmentsVM> getAllAppointmentsCompact(@PathVariable Long organizationId, @RequestParam LocalDateTime start, @RequestParam LocalDateTime end, WebRequest request) {
+        this.log.debug("REST request to get all compact Appointments for Organization {}, between {} and {}", organizationId, start, end);
+        if (request.checkNotModified(this.organizationVersionService.getAppointmentsETag(organizationId))) {
+            return null;
+        }
+        List<AppointmentDTO> appointments = this.appointmentService.findAllForOrganization(organizationId, start, end);
+        return ResponseEntity.ok().body(new CompactAppointmentsVM(organizationId, appointments));
+    }
+
+    /**
+     * {@code GET  /appointments/organization/:organizationId/page} : get a page of the appointments for Organization, optionally only of one Employee.
+     * <p>
+     * The first request passes the range; every following request passes {@code start} and {@code afterId} of the previous response.
+     * Like the lists, the pages carry the ETag of the appointments of the Organization.
+     *
+     * @param organizationId the id of the Organization.
+     * @param employeeId     the optional id of the Employee.
+     * @param start          start Date.
+     * @param afterId        the appointment id of the position.
+     * @param end            the end Date.
+     * @param size           the maximum number of appointments.
+     * @param request        the request, checked for {@code If-None-Match}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the appointments with the position of the next page in body.
+     */
+    @GetMapping("/appointments/organization/{organizationId}/page")
+    public ResponseEntity<AppointmentPageVM> getPageOfAppointments(
+            @PathVariable Long organizationId,
+            @RequestParam(required = false) Long employeeId,
+            @RequestParam LocalDateTime start,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam LocalDateTime end,
+            @RequestParam(defaultValue = "100") int size,
+            WebRequest request
+    ) {
+        this.log.debug("REST request to get a page of Appointments for Organization {}, Employee {}, between {}/{} and {}", organizationId, employeeId, start, afterId, end);
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestAlertException("size must be between 1 and " + MAX_PAGE_SIZE, ENTITY_NAME, "sizeinvalid");
+        }
+        if (request.checkNotModified(this.organizationVersionService.getAppointmentsETag(organizationId))) {
+            return null;
+        }
+        List<AppointmentDTO> appointments = this.appointmentService.findPage(organizationId, employeeId, start, afterId, end, size);
+        if (appointments.isEmpty()) {
+            return ResponseEntity.ok(new AppointmentPageVM(appointments, start, afterId, false));
+        }
+        AppointmentDTO last = appointments.get(appointments.size() - 1);
+        return ResponseEntity.ok(new AppointmentPageVM(appointments, last.getStartAt(), last.getId(), appointments.size() == size));
+    }
+
+    /**
+     * {@code GET  /appointments/organization/:organizationId/stream} : stream all the appointments for Organization as newline delimited JSON.
+     * <p>
+     * The response is written while the rows are read from the database, so the request thread is released immediately
+     * and a slow client only slows down its own cursor.
+     * Unlike the list endpoints, the stream is not bound by the row limit; it is meant for privileged callers.
+     * As the stream holds a database connection until the client has read it, the range and the number of concurrent
+     * streams are bounded by the {@link StreamingLimits}.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          start Date.
+     * @param end            the end Date.
+     * @param request        the current request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the appointments as NDJSON in body,
+     * or with status {@code 400 (Bad Request)} if the range is too large,
+     * or with status {@code 503 (Service Unavailable)} if too many streams are running.
+     */
+    @GetMapping(value = "/appointments/organization/{organizationId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAppointments(
+            @PathVariable Long organizationId,
+            @RequestParam LocalDateTime start,
+            @RequestParam LocalDateTime end,
+            WebRequest request
+    ) {
+        this.log.debug("REST request to stream all Appointments for Organization {}, between {} and {}", organizationId, start, end);
+        this.streamingLimits.checkRange(start, end);
+        ObjectWriter writer = this.objectMapper.writerFor(AppointmentDTO.class);
+        StreamingResponseBody body = LimitedStreamingResponseBody.of(this.streamingLimits, request, outputStream ->
+                this.appointmentService.streamAllForOrganization(organizationId, start, end, appointment -> {
+                    try {
+                        outputStream.write(writer.writeValueAsBytes(appointment));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * {@code GET  /appointments/organization/:organizationId/changes} : get the appointments of an Organization created, updated or deleted after a watermark.
+     * <p>
+     * The first request omits the watermark; every following request passes {@code since} and {@code afterId} of the previous response.
+     *
+     * @param organizationId the id of the Organization.
+     * @param since          the modification date of the watermark.
+     * @param afterId        the appointment id of the watermark.
+     * @param size           the maximum number of changes.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the changes with the next watermark in body.
+     */
+    @GetMapping("/appointments/organization/{organizationId}/changes")
+    public ResponseEntity<AppointmentChangeFeedVM> getAppointmentChanges(
+            @PathVariable Long organizationId,
+            @RequestParam(required = false) Instant since,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "100") int size
+    ) {
+        this.log.debug("REST request to get changes of Appointments for Organization {} since {}/{}", organizationId, since, afterId);
+        if (size < 1 || size > MAX_CHANGE_FEED_SIZE) {
+            throw new BadRequestAlertException("size must be between 1 and " + MAX_CHANGE_FEED_SIZE, ENTITY_NAME, "sizeinvalid");
+        }
+        List<AppointmentChangeDTO> changes = this.appointmentChangeFeedService.findChanges(organizationId, since, afterId, size);
+        if (changes.isEmpty()) {
+            return ResponseEntity.ok(new AppointmentChangeFeedVM(changes, since, afterId, false));
+        }
+        AppointmentChangeDTO last = changes.get(changes.size() - 1);
+        return ResponseEntity.ok(new AppointmentChangeFeedVM(changes, last.getModifiedDate(), last.getAppointmentId(), changes.size() == size));
+    }
+
     /**
      * {@code GET  /appointments/:id} : get the "id" appointment.
      *
@@ -177,6 +434,21 @@ public class AppointmentResource {
                 .build();
     }
 
+    /**
+     * {@code DELETE  /appointments/:id/occurrences/:date} : cancel the occurrence on "date" of the recurring "id" appointment.
+     *
+     * @param id   the id of the recurring appointmentDTO.
+     * @param date the date of the occurrence to cancel.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated appointmentDTO, or with status {@code 404 (Not Found)},
+     * or with status {@code 400 (Bad Request)} if the appointment has no occurrence on the date.
+     */
+    @DeleteMapping("/appointments/{id}/occurrences/{date}")
+    public ResponseEntity<AppointmentDTO> cancelOccurrence(@PathVariable Long id, @PathVariable LocalDate date) {
+        this.log.debug("REST request to cancel occurrence {} of Appointment : {}", date, id);
+        Optional<AppointmentDTO> result = this.appointmentService.cancelOccurrence(id, date);
+        return ResponseUtil.wrapOrNotFound(result, HeaderUtil.createEntityUpdateAlert(this.applicationName, true, ENTITY_NAME, id.toString()));
+    }
+
     /**
      * {@code DELETE  /appointments} : delete all appointments.
      *
@@ -0,0 +1,110 @@
+package de.apnmt.appointment.common.web.rest;
+
+import de.apnmt.appointment.common.service.AppointmentStatisticsService;
+import de.apnmt.appointment.common.service.DailyOccupancyService;
+import de.apnmt.appointment.common.service.dto.AppointmentStatisticsDTO;
+import de.apnmt.appointment.common.service.dto.DailyOccupancyDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * REST controller for the statistics of the {@link de.apnmt.appointment.common.domain.Appointment}s of an organization.
+ */
+@RestController
+@RequestMapping("/api")
+public class AppointmentStatisticsResource {
+
+    private final Logger log = LoggerFactory.getLogger(AppointmentStatisticsResource.class);
+
+    private final AppointmentStatisticsService appointmentStatisticsService;
+
+    private final DailyOccupancyService dailyOccupancyService;
+
+    public AppointmentStatisticsResource(AppointmentStatisticsService appointmentStatisticsService, DailyOccupancyService dailyOccupancyService) {
+        this.appointmentStatisticsService = appointmentStatisticsService;
+        this.dailyOccupancyService = dailyOccupancyService;
+    }
+
+    /**
+     * {@code GET  /appointments/organization/:organizationId/statistics/employees} : get the statistics of the appointments of an Organization per employee.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          start Date.
+     * @param end            the end Date.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of statistics in body.
+     */
+    @GetMapping("/appointments/organization/{organizationId}/statistics/employees")
+    public ResponseEntity<List<AppointmentStatisticsDTO>> getStatisticsPerEmployee(@PathVariable Long organizationId, @RequestParam LocalDateTime start, @RequestParam LocalDateTime end) {
+        this.log.debug("REST request to get statistics per Employee for Organization {}, between {} and {}", organizationId, start, end);
+        return ResponseEntity.ok().body(this.appointmentStatisticsService.findAllPerEmployee(organizationId, start, end));
+    }
+
+    /**
+     * {@code GET  /appointments/organization/:organizationId/statistics/services} : get the statistics of the appointments of an Organization per service.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          start Date.
+     * @param end            the end Date.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of statistics in body.
+     */
+    @GetMapping("/appointments/organization/{organizationId}/statistics/services")
+    public ResponseEntity<List<AppointmentStatisticsDTO>> getStatisticsPerService(@PathVariable Long organizationId, @RequestParam LocalDateTime start, @RequestParam LocalDateTime end) {
+        this.log.debug("REST request to get statistics per Service for Organization {}, between {} and {}", organizationId, start, end);
+        return ResponseEntity.ok().body(this.appointmentStatisticsService.findAllPerService(organizationId, start, end));
+    }
+
+    /**
+     * {@code GET  /appointments/organization/:organizationId/statistics/days} : get the statistics of the appointments of an Organization per day.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          start Date.
+     * @param end            the end Date.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of statistics in body.
+     */
+    @GetMapping("/appointments/organization/{organizationId}/statistics/days")
+    public ResponseEntity<List<AppointmentStatisticsDTO>> getStatisticsPerDay(@PathVariable Long organizationId, @RequestParam LocalDateTime start, @RequestParam LocalDateTime end) {
+        this.log.debug("REST request to get statistics per day for Organization {}, between {} and {}", organizationId, start, end);
+        return ResponseEntity.ok().body(this.appointmentStatisticsService.findAllPerDay(organizationId, start, end));
+    }
+
+    /**
+     * {@code GET  /appointments/organization/:organizationId/occupancy} : get the daily occupancy of the employees of an Organization.
+     * Only single appointments are counted, recurring appointments are not part of the occupancy.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          the first day.
+     * @param end            the day after the last day.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of occupancies in body.
+     */
+    @GetMapping("/appointments/organization/{organizationId}/occupancy")
+    public ResponseEntity<List<DailyOccupancyDTO>> getDailyOccupancy(@PathVariable Long organizationId, @RequestParam LocalDate start, @RequestParam LocalDate end) {
+        this.log.debug("REST request to get DailyOccupancy for Organization {}, between {} and {}", organizationId, start, end);
+        return ResponseEntity.ok().body(this.dailyOccupancyService.findAll(organizationId, start, end));
+    }
+
+    /**
+     * {@code POST  /appointments/organization/:organizationId/occupancy/rebuild} : rebuild the daily occupancy of an Organization from its appointments.
+     *
+     * @param organizationId the id of the Organization.
+     * @param start          the first day.
+     * @param end            the day after the last day.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     */
+    @PostMapping("/appointments/organization/{organizationId}/occupancy/rebuild")
+    public ResponseEntity<Void> rebuildDailyOccupancy(@PathVariable Long organizationId, @RequestParam LocalDate start, @RequestParam LocalDate end) {
+        this.log.debug("REST request to rebuild DailyOccupancy for Organization {}, between {} and {}", organizationId, start, end);
+        this.dailyOccupancyService.rebuild(organizationId, start, end);
+        return ResponseEntity.noContent().build();
+    }
+}
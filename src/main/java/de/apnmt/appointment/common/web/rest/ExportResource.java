@@ -0,0 +1,57 @@
+package de.apnmt.appointment.common.web.rest;
+
+import de.apnmt.appointment.common.service.ExportService;
+import de.apnmt.appointment.common.service.StreamingLimits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * REST controller exporting the data of an organization.
+ */
+@RestController
+@RequestMapping("/api")
+public class ExportResource {
+
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final Logger log = LoggerFactory.getLogger(ExportResource.class);
+
+    private final ExportService exportService;
+
+    private final StreamingLimits streamingLimits;
+
+    public ExportResource(ExportService exportService, StreamingLimits streamingLimits) {
+        this.exportService = exportService;
+        this.streamingLimits = streamingLimits;
+    }
+
+    /**
+     * {@code GET  /export/organization/:id} : export all customers, services and appointments of an organization.
+     * <p>
+     * The export counts against the concurrent streams of the {@link StreamingLimits}.
+     *
+     * @param id      the organization id.
+     * @param request the current request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the gzip compressed NDJSON export in body,
+     * or with status {@code 503 (Service Unavailable)} if too many streams are running.
+     */
+    @GetMapping("/export/organization/{id}")
+    public ResponseEntity<StreamingResponseBody> exportOrganization(@PathVariable Long id, WebRequest request) {
+        this.log.debug("REST request to export Organization {}", id);
+        StreamingResponseBody body = LimitedStreamingResponseBody.of(this.streamingLimits, request, outputStream -> this.exportService.export(id, outputStream));
+        return ResponseEntity.ok()
+                .contentType(GZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("organization-" + id + ".ndjson.gz").build().toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,66 @@
+package de.apnmt.appointment.common.web.rest;
+
+import de.apnmt.appointment.common.service.StreamingLimits;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+
+/**
+ * A {@link StreamingResponseBody} counting against the concurrent streams of the {@link StreamingLimits}.
+ * <p>
+ * The permit is taken while the request is handled, so that a rejection is still answered with
+ * {@code 503 (Service Unavailable)}. It is returned once the body has been written and, as the body may never run when
+ * the task is rejected by the executor or the request times out or fails before, also once the asynchronous request
+ * completes.
+ */
+final class LimitedStreamingResponseBody implements StreamingResponseBody {
+
+    private final StreamingLimits.Permit permit;
+
+    private final StreamingResponseBody body;
+
+    private LimitedStreamingResponseBody(StreamingLimits.Permit permit, StreamingResponseBody body) {
+        this.permit = permit;
+        this.body = body;
+    }
+
+    /**
+     * Take a permit for a stream of the current request.
+     *
+     * @param streamingLimits the limits.
+     * @param request         the current request.
+     * @param body            the body writing the stream.
+     * @return the body returning the permit.
+     * @throws de.apnmt.appointment.common.service.AdmissionRejectedException if the maximum number of streams is running.
+     */
+    static StreamingResponseBody of(StreamingLimits streamingLimits, WebRequest request, StreamingResponseBody body) {
+        StreamingLimits.Permit permit = streamingLimits.acquire();
+        try {
+            WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(permit, new CallableProcessingInterceptor() {
+                @Override
+                public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                    permit.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        return new LimitedStreamingResponseBody(permit, body);
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        try {
+            this.body.writeTo(outputStream);
+        } finally {
+            this.permit.release();
+        }
+    }
+}
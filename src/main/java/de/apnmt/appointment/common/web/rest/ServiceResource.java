@@ -1,9 +1,11 @@
 package de.apnmt.appointment.common.web.rest;
 
 import de.apnmt.appointment.common.domain.Service;
-import de.apnmt.appointment.common.repository.ServiceRepository;
+import de.apnmt.appointment.common.service.ImportService;
+import de.apnmt.appointment.common.service.OrganizationVersionService;
 import de.apnmt.appointment.common.service.ServiceService;
 import de.apnmt.appointment.common.service.dto.ServiceDTO;
+import de.apnmt.appointment.common.service.dto.ImportResultDTO;
 import de.apnmt.common.errors.BadRequestAlertException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,8 +13,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -20,8 +24,10 @@ import tech.jhipster.web.util.ResponseUtil;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -42,11 +48,14 @@ public class ServiceResource {
 
     private final ServiceService serviceService;
 
-    private final ServiceRepository serviceRepository;
+    private final ImportService importService;
 
-    public ServiceResource(ServiceService serviceService, ServiceRepository serviceRepository) {
+    private final OrganizationVersionService organizationVersionService;
+
+    public ServiceResource(ServiceService serviceService, ImportService importService, OrganizationVersionService organizationVersionService) {
         this.serviceService = serviceService;
-        this.serviceRepository = serviceRepository;
+        this.importService = importService;
+        this.organizationVersionService = organizationVersionService;
     }
 
     /**
@@ -92,7 +101,7 @@ public class ServiceResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!this.serviceRepository.existsById(id)) {
+        if (!this.serviceService.exists(serviceDTO)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
@@ -127,7 +136,7 @@ public class ServiceResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!this.serviceRepository.existsById(id)) {
+        if (!this.serviceService.exists(serviceDTO)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
@@ -153,19 +162,66 @@ public class ServiceResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code POST  /services/organization/:id/import} : import services from CSV.
+     * <p>
+     * The body is read as a stream and written in batches; an aborted import is resumed after its last committed batch
+     * by repeating the request with the {@code importId} of the result.
+     *
+     * @param id       the organization id.
+     * @param importId the id of the import to resume, a new import is started without.
+     * @param skip     the number of data rows to skip in addition to the processed rows of the resumed import.
+     * @param csv      the CSV body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the result of the import in body.
+     */
+    @PostMapping(value = "/services/organization/{id}/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ImportResultDTO> importServices(
+        @PathVariable Long id,
+        @RequestParam(required = false) String importId,
+        @RequestParam(defaultValue = "0") long skip,
+        InputStream csv
+    ) {
+        this.log.debug("REST request to import Services for Organization {}", id);
+        return ResponseEntity.ok(this.importService.importServices(id, importId, csv, skip));
+    }
+
     /**
      * {@code GET  /services/organization/:id} : get all the services.
+     * <p>
+     * The response carries an ETag of the current version of the services, a request with a matching {@code If-None-Match}
+     * header is answered with {@code 304 (Not Modified)} without loading them.
      *
-     * @param id the organization id.
+     * @param id            the organization id.
+     * @param modifiedSince the optional date, only services created or modified after it are returned.
+     * @param request       the request, checked for {@code If-None-Match}.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of services in body.
      */
     @GetMapping("/services/organization/{id}")
-    public ResponseEntity<List<ServiceDTO>> getAllServices(@PathVariable Long id) {
+    public ResponseEntity<List<ServiceDTO>> getAllServices(@PathVariable Long id, @RequestParam(required = false) Instant modifiedSince, WebRequest request) {
         this.log.debug("REST request to get a list of Services");
-        List<ServiceDTO> services = this.serviceService.findAll(id);
+        // the version is read before the list, so a concurrent change can only make the ETag older than the body
+        if (request.checkNotModified(this.organizationVersionService.getServicesETag(id))) {
+            return null;
+        }
+        List<ServiceDTO> services = modifiedSince != null ? this.serviceService.findAllModifiedSince(id, modifiedSince) : this.serviceService.findAll(id);
         return ResponseEntity.ok().body(services);
     }
 
+    /**
+     * {@code GET  /services/organization/:id/page} : get a page of the services of an organization.
+     *
+     * @param id       the organization id.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of services in body.
+     */
+    @GetMapping("/services/organization/{id}/page")
+    public ResponseEntity<List<ServiceDTO>> getPageOfServices(@PathVariable Long id, Pageable pageable) {
+        this.log.debug("REST request to get a page of Services for Organization {}", id);
+        Page<ServiceDTO> page = this.serviceService.findAll(id, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
     /**
      * {@code GET  /services/:id} : get the "id" service.
      *
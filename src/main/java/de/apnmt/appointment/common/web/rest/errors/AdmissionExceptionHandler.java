@@ -0,0 +1,39 @@
+package de.apnmt.appointment.common.web.rest.errors;
+
+import de.apnmt.appointment.common.service.AdmissionRejectedException;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.zalando.problem.Problem;
+
+/**
+ * Translates requests that were not admitted into problem responses with a {@code Retry-After} header.
+ * Ordered before the exception translator of the application, which does not know the header.
+ */
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AdmissionExceptionHandler {
+
+    /**
+     * @param e the rejection.
+     * @return the {@link ResponseEntity} with the status of the rejection, {@code 429 (Too Many Requests)} or {@code 503 (Service Unavailable)}.
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Problem> handleAdmissionRejected(AdmissionRejectedException e) {
+        Problem problem = Problem
+                .builder()
+                .withStatus(e.getStatus())
+                .withTitle(e.getStatus().getReasonPhrase())
+                .withDetail(e.getMessage())
+                .build();
+        return ResponseEntity
+                .status(e.getStatus().getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(problem);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Rest layer error handling.
+ */
+package de.apnmt.appointment.common.web.rest.errors;
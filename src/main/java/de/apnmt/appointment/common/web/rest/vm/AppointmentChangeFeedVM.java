@@ -0,0 +1,52 @@
+package de.apnmt.appointment.common.web.rest.vm;
+
+import de.apnmt.appointment.common.service.dto.AppointmentChangeDTO;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * View Model of a page of the appointment change feed, carrying the watermark of the next page.
+ */
+public class AppointmentChangeFeedVM {
+
+    private final List<AppointmentChangeDTO> changes;
+
+    private final Instant since;
+
+    private final Long afterId;
+
+    private final boolean hasMore;
+
+    public AppointmentChangeFeedVM(List<AppointmentChangeDTO> changes, Instant since, Long afterId, boolean hasMore) {
+        this.changes = changes;
+        this.since = since;
+        this.afterId = afterId;
+        this.hasMore = hasMore;
+    }
+
+    public List<AppointmentChangeDTO> getChanges() {
+        return this.changes;
+    }
+
+    /**
+     * @return the {@code since} parameter of the next request.
+     */
+    public Instant getSince() {
+        return this.since;
+    }
+
+    /**
+     * @return the {@code afterId} parameter of the next request.
+     */
+    public Long getAfterId() {
+        return this.afterId;
+    }
+
+    /**
+     * @return whether further changes are available right away.
+     */
+    public boolean isHasMore() {
+        return this.hasMore;
+    }
+}
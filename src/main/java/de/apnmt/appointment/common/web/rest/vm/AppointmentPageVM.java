@@ -0,0 +1,52 @@
+package de.apnmt.appointment.common.web.rest.vm;
+
+import de.apnmt.appointment.common.service.dto.AppointmentDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * View Model of a page of appointments, carrying the position of the next page.
+ */
+public class AppointmentPageVM {
+
+    private final List<AppointmentDTO> appointments;
+
+    private final LocalDateTime start;
+
+    private final Long afterId;
+
+    private final boolean hasMore;
+
+    public AppointmentPageVM(List<AppointmentDTO> appointments, LocalDateTime start, Long afterId, boolean hasMore) {
+        this.appointments = appointments;
+        this.start = start;
+        this.afterId = afterId;
+        this.hasMore = hasMore;
+    }
+
+    public List<AppointmentDTO> getAppointments() {
+        return this.appointments;
+    }
+
+    /**
+     * @return the {@code start} parameter of the next request.
+     */
+    public LocalDateTime getStart() {
+        return this.start;
+    }
+
+    /**
+     * @return the {@code afterId} parameter of the next request.
+     */
+    public Long getAfterId() {
+        return this.afterId;
+    }
+
+    /**
+     * @return whether further appointments may follow.
+     */
+    public boolean isHasMore() {
+        return this.hasMore;
+    }
+}
@@ -0,0 +1,66 @@
+package de.apnmt.appointment.common.web.rest.vm;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import de.apnmt.appointment.common.service.dto.AppointmentDTO;
+import de.apnmt.appointment.common.service.dto.RecurrenceRuleDTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * View Model of an appointment referencing its customer and service by id, see {@link CompactAppointmentsVM}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactAppointmentVM {
+
+    private final Long id;
+
+    private final LocalDateTime startAt;
+
+    private final LocalDateTime endAt;
+
+    private final Long employeeId;
+
+    private final Long customerId;
+
+    private final Long serviceId;
+
+    private final RecurrenceRuleDTO recurrenceRule;
+
+    public CompactAppointmentVM(AppointmentDTO appointment) {
+        this.id = appointment.getId();
+        this.startAt = appointment.getStartAt();
+        this.endAt = appointment.getEndAt();
+        this.employeeId = appointment.getEmployeeId();
+        this.customerId = appointment.getCustomer() != null ? appointment.getCustomer().getId() : null;
+        this.serviceId = appointment.getService() != null ? appointment.getService().getId() : null;
+        this.recurrenceRule = appointment.getRecurrenceRule();
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public LocalDateTime getStartAt() {
+        return this.startAt;
+    }
+
+    public LocalDateTime getEndAt() {
+        return this.endAt;
+    }
+
+    public Long getEmployeeId() {
+        return this.employeeId;
+    }
+
+    public Long getCustomerId() {
+        return this.customerId;
+    }
+
+    public Long getServiceId() {
+        return this.serviceId;
+    }
+
+    public RecurrenceRuleDTO getRecurrenceRule() {
+        return this.recurrenceRule;
+    }
+}
@@ -0,0 +1,60 @@
+package de.apnmt.appointment.common.web.rest.vm;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import de.apnmt.appointment.common.service.dto.AppointmentDTO;
+import de.apnmt.appointment.common.service.dto.CustomerDTO;
+import de.apnmt.appointment.common.service.dto.ServiceDTO;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * View Model of a list of appointments in which every customer and service is sent once, keyed by id,
+ * instead of once per appointment. Properties without value are left out.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactAppointmentsVM {
+
+    private final Long organizationId;
+
+    private final List<CompactAppointmentVM> appointments;
+
+    private final Map<Long, CustomerDTO> customers = new LinkedHashMap<>();
+
+    private final Map<Long, ServiceDTO> services = new LinkedHashMap<>();
+
+    public CompactAppointmentsVM(Long organizationId, List<AppointmentDTO> appointments) {
+        this.organizationId = organizationId;
+        this.appointments = new ArrayList<>(appointments.size());
+        for (AppointmentDTO appointment : appointments) {
+            this.appointments.add(new CompactAppointmentVM(appointment));
+            if (appointment.getCustomer() != null && appointment.getCustomer().getId() != null) {
+                this.customers.putIfAbsent(appointment.getCustomer().getId(), appointment.getCustomer());
+            }
+            if (appointment.getService() != null && appointment.getService().getId() != null) {
+                this.services.putIfAbsent(appointment.getService().getId(), appointment.getService());
+            }
+        }
+    }
+
+    /**
+     * @return the organization of all appointments, which is therefore not repeated per appointment.
+     */
+    public Long getOrganizationId() {
+        return this.organizationId;
+    }
+
+    public List<CompactAppointmentVM> getAppointments() {
+        return this.appointments;
+    }
+
+    public Map<Long, CustomerDTO> getCustomers() {
+        return this.customers;
+    }
+
+    public Map<Long, ServiceDTO> getServices() {
+        return this.services;
+    }
+}
@@ -0,0 +1,101 @@
+package de.apnmt.appointment.common.config;
+
+import liquibase.Liquibase;
+import liquibase.exception.LiquibaseException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FastStartSpringLiquibaseTest {
+
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    void createDatabase() {
+        this.dataSource = new JdbcDataSource();
+        this.dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        this.dataSource.setUser("sa");
+    }
+
+    private CountingLiquibase migrate(Map<String, String> parameters) throws LiquibaseException {
+        CountingLiquibase liquibase = new CountingLiquibase();
+        liquibase.setDataSource(this.dataSource);
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.setChangeLog("classpath:config/liquibase/master.xml");
+        liquibase.setContexts("test");
+        liquibase.setChangeLogParameters(parameters);
+        liquibase.afterPropertiesSet();
+        return liquibase;
+    }
+
+    private int count(String table) throws SQLException {
+        try (Connection connection = this.dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(*) from " + table)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    @Test
+    void skipsTheSecondUpdate() throws Exception {
+        long start = System.nanoTime();
+        CountingLiquibase first = this.migrate(Collections.emptyMap());
+        long firstDuration = System.nanoTime() - start;
+        int changeSets = this.count("DATABASECHANGELOG");
+
+        start = System.nanoTime();
+        CountingLiquibase second = this.migrate(Collections.emptyMap());
+        long secondDuration = System.nanoTime() - start;
+
+        assertThat(first.updates).isEqualTo(1);
+        assertThat(second.updates).isZero();
+        assertThat(this.count("DATABASECHANGELOG_FINGERPRINT")).isEqualTo(1);
+        assertThat(this.count("DATABASECHANGELOG")).isEqualTo(changeSets);
+        assertThat(secondDuration).isLessThan(firstDuration);
+    }
+
+    @Test
+    void updatesAgainWhenTheParametersChange() throws Exception {
+        this.migrate(Collections.emptyMap());
+
+        CountingLiquibase changed = this.migrate(Collections.singletonMap("appointmentOverlapConstraint", "true"));
+        CountingLiquibase unchanged = this.migrate(Collections.singletonMap("appointmentOverlapConstraint", "true"));
+
+        assertThat(changed.updates).isEqualTo(1);
+        assertThat(unchanged.updates).isZero();
+    }
+
+    @Test
+    void updatesAgainWhenChangeSetsWereRemovedFromTheDatabase() throws Exception {
+        this.migrate(Collections.emptyMap());
+        try (Connection connection = this.dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("delete from DATABASECHANGELOG where ID = '00000000000001'");
+        }
+
+        CountingLiquibase repaired = this.migrate(Collections.emptyMap());
+
+        assertThat(repaired.updates).isEqualTo(1);
+    }
+
+    private static class CountingLiquibase extends FastStartSpringLiquibase {
+
+        private int updates;
+
+        @Override
+        protected void performUpdate(Liquibase liquibase) throws LiquibaseException {
+            this.updates++;
+            super.performUpdate(liquibase);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package de.apnmt.appointment.common.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.apnmt.common.event.ApnmtEvent;
+import de.apnmt.common.event.ApnmtEventType;
+import de.apnmt.common.event.value.AppointmentEventDTO;
+import de.apnmt.common.event.value.ServiceEventDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ApnmtEventCodecTest {
+
+    private final ApnmtEventCodec codec = new ApnmtEventCodec();
+
+    private static ServiceEventDTO service(double cost) {
+        ServiceEventDTO service = new ServiceEventDTO();
+        service.setId(1L);
+        service.setOrganizationId(2L);
+        service.setName("Haircut");
+        service.setDescription("Wash, cut and blow-dry, including a consultation about the style");
+        service.setDuration(45);
+        service.setCost(cost);
+        return service;
+    }
+
+    private static ApnmtEvent<ServiceEventDTO> event(ServiceEventDTO value) {
+        return new ApnmtEvent<ServiceEventDTO>().timestamp(LocalDateTime.of(2026, 10, 19, 9, 30)).type(ApnmtEventType.serviceCreated).value(value);
+    }
+
+    @Test
+    void decodesTheEncodedEvent() {
+        ApnmtEvent<ServiceEventDTO> event = event(service(30.0));
+
+        ApnmtEvent<ServiceEventDTO> decoded = this.codec.decode(this.codec.encode(event), ServiceEventDTO.class);
+
+        assertThat(decoded.getType()).isEqualTo(ApnmtEventType.serviceCreated);
+        assertThat(decoded.getTimestamp()).isEqualTo(event.getTimestamp());
+        assertThat(decoded.getValue()).usingRecursiveComparison().isEqualTo(event.getValue());
+    }
+
+    @Test
+    void decodesEventsOfAnotherCodecInstance() {
+        ApnmtEvent<ServiceEventDTO> event = event(service(30.0));
+
+        ApnmtEvent<ServiceEventDTO> decoded = new ApnmtEventCodec().decode(this.codec.encode(event), ServiceEventDTO.class);
+
+        assertThat(decoded.getValue()).usingRecursiveComparison().isEqualTo(event.getValue());
+    }
+
+    @Test
+    void isSmallerThanJson() throws Exception {
+        ApnmtEvent<ServiceEventDTO> event = event(service(30.0));
+        ObjectMapper json = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        assertThat(this.codec.encode(event).length).isLessThan(json.writeValueAsBytes(event).length);
+    }
+
+    @Test
+    void deltaKeepsOnlyChangedAndRetainedProperties() {
+        ServiceEventDTO previous = service(30.0);
+        ServiceEventDTO current = service(35.0);
+
+        ServiceEventDTO delta = this.codec.delta(previous, current, "id", "organizationId");
+
+        assertThat(delta.getId()).isEqualTo(1L);
+        assertThat(delta.getOrganizationId()).isEqualTo(2L);
+        assertThat(delta.getCost()).isEqualTo(35.0);
+        assertThat(delta.getName()).isNull();
+        assertThat(delta.getDescription()).isNull();
+        assertThat(delta.getDuration()).isNull();
+        assertThat(this.codec.encode(event(delta)).length).isLessThan(this.codec.encode(event(current)).length);
+    }
+
+    @Test
+    void deltaWithoutPreviousStateIsTheCurrentState() {
+        ServiceEventDTO current = service(35.0);
+
+        assertThat(this.codec.delta(null, current, "id")).isSameAs(current);
+    }
+
+    @Test
+    void mergeRestoresTheCurrentStateFromTheDelta() {
+        ServiceEventDTO previous = service(30.0);
+        ServiceEventDTO current = service(35.0);
+        ServiceEventDTO delta = this.codec.delta(previous, current, "id", "organizationId");
+
+        ApnmtEvent<ServiceEventDTO> received = this.codec.decode(this.codec.encode(event(delta)), ServiceEventDTO.class);
+
+        assertThat(this.codec.merge(previous, received.getValue())).usingRecursiveComparison().isEqualTo(current);
+    }
+
+    @Test
+    void rejectsPayloadsOfAnotherValueType() {
+        byte[] payload = this.codec.encode(event(service(30.0)));
+
+        assertThatThrownBy(() -> this.codec.decode(payload, AppointmentEventDTO.class))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(ServiceEventDTO.class.getName());
+    }
+
+    @Test
+    void rejectsPayloadsOfAnUnknownSchema() {
+        byte[] payload = this.codec.encode(new ApnmtEvent<UnknownValue>().type(ApnmtEventType.serviceCreated).value(new UnknownValue()));
+
+        assertThatThrownBy(() -> new ApnmtEventCodec().decode(payload, ServiceEventDTO.class))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unknown");
+    }
+
+    @Test
+    void rejectsPayloadsWithoutHeader() {
+        assertThatThrownBy(() -> this.codec.decode(new byte[]{0x1, 0x0, 0x0, 0x0, 0x0, 0x0}, ServiceEventDTO.class))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> this.codec.decode(new byte[]{0x0}, ServiceEventDTO.class))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void schemaIdsAreStableAndDistinct() {
+        assertThat(this.codec.register(UnknownValue.class)).isNotEqualTo(this.codec.register(ServiceEventDTO.class));
+        assertThat(this.codec.register(ServiceEventDTO.class)).isEqualTo(new ApnmtEventCodec().register(ServiceEventDTO.class));
+    }
+
+    static class UnknownValue {
+
+        private String name = "value";
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package de.apnmt.appointment.common.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.zalando.problem.Status;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookingAdmissionControlTest {
+
+    private long now = 1_000_000L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BookingAdmissionControl admissionControl(double ratePerSecond, int burst, int maxOrganizations) {
+        return new BookingAdmissionControl(this.meterRegistry, ratePerSecond, burst, maxOrganizations, 0, Duration.ZERO, () -> this.now);
+    }
+
+    private void advance(Duration duration) {
+        this.now += duration.toNanos();
+    }
+
+    @Test
+    void admitsTheBurstAndRejectsTheNextWrite() {
+        BookingAdmissionControl control = this.admissionControl(1, 3, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(control.execute(1L, () -> "booked")).isEqualTo("booked");
+        }
+
+        assertThatThrownBy(() -> control.execute(1L, () -> "booked"))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class, e -> {
+                    assertThat(e.getStatus()).isEqualTo(Status.TOO_MANY_REQUESTS);
+                    assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(1));
+                });
+        assertThat(this.meterRegistry.counter("apnmt.booking.admission.rejected", "reason", "rate").count()).isEqualTo(1);
+    }
+
+    @Test
+    void refillsAtTheRate() {
+        BookingAdmissionControl control = this.admissionControl(2, 1, 100);
+        control.execute(1L, () -> "booked");
+
+        this.advance(Duration.ofMillis(400));
+        assertThatThrownBy(() -> control.execute(1L, () -> "booked")).isInstanceOf(AdmissionRejectedException.class);
+
+        this.advance(Duration.ofMillis(150));
+        assertThat(control.execute(1L, () -> "booked")).isEqualTo("booked");
+    }
+
+    @Test
+    void organizationsHaveTheirOwnBuckets() {
+        BookingAdmissionControl control = this.admissionControl(1, 1, 100);
+        control.execute(1L, () -> "booked");
+
+        assertThat(control.execute(2L, () -> "booked")).isEqualTo("booked");
+        assertThatThrownBy(() -> control.execute(1L, () -> "booked")).isInstanceOf(AdmissionRejectedException.class);
+    }
+
+    @Test
+    void dropsBucketsOnceRefilled() {
+        BookingAdmissionControl control = this.admissionControl(1, 2, 100);
+        control.execute(1L, () -> "booked");
+        control.execute(2L, () -> "booked");
+        assertThat(control.getBucketCount()).isEqualTo(2);
+
+        this.advance(Duration.ofSeconds(1));
+        control.execute(3L, () -> "booked");
+
+        assertThat(control.getBucketCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsAtMostTheMaximumNumberOfBuckets() {
+        BookingAdmissionControl control = this.admissionControl(1, 2, 3);
+
+        for (long organizationId = 1; organizationId <= 10; organizationId++) {
+            control.execute(organizationId, () -> "booked");
+            this.advance(Duration.ofMillis(1));
+        }
+
+        assertThat(control.getBucketCount()).isEqualTo(3);
+    }
+
+    @Test
+    void zeroRateDisablesTheCheck() {
+        BookingAdmissionControl control = this.admissionControl(0, 1, 100);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(control.execute(1L, () -> "booked")).isEqualTo("booked");
+        }
+        assertThat(control.getBucketCount()).isZero();
+    }
+}
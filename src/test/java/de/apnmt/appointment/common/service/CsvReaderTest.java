@@ -0,0 +1,113 @@
+package de.apnmt.appointment.common.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    private static final int MAX_FIELD_LENGTH = 100;
+
+    private static final int MAX_RECORD_LENGTH = 1000;
+
+    private static CsvReader reader(String csv) {
+        return new CsvReader(new StringReader(csv), MAX_FIELD_LENGTH, MAX_RECORD_LENGTH);
+    }
+
+    private static List<List<String>> records(CsvReader reader) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.readRecord()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Test
+    void detectsSeparatorFromHeader() throws IOException {
+        CsvReader semicolons = reader("name;description\nCut;Short, dry\n");
+        assertThat(semicolons.readHeader()).containsExactly("name", "description");
+        assertThat(records(semicolons)).containsExactly(List.of("Cut", "Short, dry"));
+
+        CsvReader commas = reader("name,description\r\nCut,Short\r\n");
+        assertThat(commas.readHeader()).containsExactly("name", "description");
+        assertThat(records(commas)).containsExactly(List.of("Cut", "Short"));
+    }
+
+    @Test
+    void readsQuotedFields() throws IOException {
+        CsvReader reader = reader("name;description\n\"Cut; wash\";\"The \"\"classic\"\"\nwith two lines\"\n\"\";x\n");
+        reader.readHeader();
+
+        assertThat(records(reader)).containsExactly(List.of("Cut; wash", "The \"classic\"\nwith two lines"), List.of("", "x"));
+    }
+
+    @Test
+    void skipsEmptyLinesAndByteOrderMark() throws IOException {
+        CsvReader reader = reader("\uFEFFname;cost\n\n1;2\n\n\n3;4");
+
+        assertThat(reader.readHeader()).containsExactly("name", "cost");
+        assertThat(records(reader)).containsExactly(List.of("1", "2"), List.of("3", "4"));
+    }
+
+    @Test
+    void returnsNullForEmptyInput() throws IOException {
+        assertThat(reader("").readHeader()).isNull();
+    }
+
+    @Test
+    void rejectsUnterminatedQuoteAtTheEnd() throws IOException {
+        CsvReader reader = reader("name;cost\n\"Cut;2\n");
+        reader.readHeader();
+
+        assertThatThrownBy(reader::readRecord).isInstanceOf(IOException.class).hasMessageContaining("Unterminated");
+    }
+
+    @Test
+    void limitsFieldLength() throws IOException {
+        CsvReader reader = reader("name;cost\n" + "x".repeat(MAX_FIELD_LENGTH) + ";1\n" + "x".repeat(MAX_FIELD_LENGTH + 1) + ";1\n");
+        reader.readHeader();
+
+        assertThat(reader.readRecord()).hasSize(2);
+        assertThatThrownBy(reader::readRecord).isInstanceOf(IOException.class).hasMessageContaining("line 3");
+    }
+
+    @Test
+    void limitsRecordLengthOfUnterminatedQuote() throws IOException {
+        StringBuilder csv = new StringBuilder("name;cost\n\"Cut;1\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append("Row ").append(i).append(";1\n");
+        }
+        CsvReader reader = new CsvReader(new StringReader(csv.toString()), MAX_RECORD_LENGTH, MAX_RECORD_LENGTH);
+        reader.readHeader();
+
+        assertThatThrownBy(reader::readRecord).isInstanceOf(IOException.class).hasMessageContaining("unterminated quote");
+    }
+
+    @Test
+    void readsHeaderLongerThanTheReadBuffer() throws IOException {
+        String column = "c".repeat(90);
+        List<String> expected = new ArrayList<>();
+        StringBuilder header = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            expected.add(column + i);
+            header.append(i > 0 ? ";" : "").append(column).append(i);
+        }
+        CsvReader reader = new CsvReader(new StringReader(header + "\n"), MAX_FIELD_LENGTH, 20000);
+
+        assertThat(reader.readHeader()).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void rejectsHeaderLongerThanTheRecordLimit() {
+        CsvReader reader = reader("h".repeat(MAX_RECORD_LENGTH + 1) + "\n");
+
+        assertThatThrownBy(reader::readHeader).isInstanceOf(IOException.class).hasMessageContaining("Header line exceeds");
+    }
+}
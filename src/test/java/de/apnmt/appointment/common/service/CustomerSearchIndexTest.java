@@ -0,0 +1,128 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.appointment.common.domain.Customer;
+import de.apnmt.appointment.common.repository.CustomerRepository;
+import de.apnmt.appointment.common.service.dto.CustomerDTO;
+import de.apnmt.appointment.common.service.mapper.CustomerMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomerSearchIndexTest {
+
+    private static final Long ORGANIZATION_ID = 1L;
+
+    private CustomerRepository customerRepository;
+
+    private CustomerSearchIndex customerSearchIndex;
+
+    private static CustomerDTO customer(long id, String lastName, String firstName, String mail, String phone) {
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(id);
+        customer.setLastName(lastName);
+        customer.setFirstName(firstName);
+        customer.setMail(mail);
+        customer.setPhone(phone);
+        customer.setOrganizationId(ORGANIZATION_ID);
+        return customer;
+    }
+
+    private List<Long> search(String query) {
+        return this.customerSearchIndex.search(ORGANIZATION_ID, query, PageRequest.of(0, 20)).getContent().stream().map(CustomerDTO::getId).collect(Collectors.toList());
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.customerRepository = mock(CustomerRepository.class);
+        CustomerMapper customerMapper = mock(CustomerMapper.class);
+        when(customerMapper.toDto(any(Customer.class))).thenAnswer(invocation -> {
+            Customer customer = invocation.getArgument(0);
+            return customer(customer.getId(), customer.getLastName(), customer.getFirstName(), customer.getMail(), customer.getPhone());
+        });
+        when(this.customerRepository.findAllByOrganizationId(ORGANIZATION_ID)).thenReturn(List.of(
+                new Customer().id(1L).lastName("Müller").firstName("Anna").mail("anna.mueller@example.com").phone("+49 171 1234567").organizationId(ORGANIZATION_ID),
+                new Customer().id(2L).lastName("Schmidt").firstName("Peter").mail("peter@example.com").organizationId(ORGANIZATION_ID),
+                new Customer().id(3L).lastName("Annabell").firstName("Mara").organizationId(ORGANIZATION_ID)
+        ));
+        this.customerSearchIndex = new CustomerSearchIndex(this.customerRepository, customerMapper, Duration.ofMinutes(10), 10);
+    }
+
+    @Test
+    void findsByPrefix() {
+        assertThat(this.search("schm")).containsExactly(2L);
+    }
+
+    @Test
+    void findsWithTypo() {
+        assertThat(this.search("Schmitd")).containsExactly(2L);
+    }
+
+    @Test
+    void requiresEveryToken() {
+        assertThat(this.search("anna müller")).containsExactly(1L);
+        assertThat(this.search("anna schmidt")).isEmpty();
+    }
+
+    @Test
+    void findsByInfix() {
+        assertThat(this.search("nabell")).containsExactly(3L);
+    }
+
+    @Test
+    void ranksPrefixBeforeInfixMatches() {
+        this.search("schmidt");
+        this.customerSearchIndex.update(customer(6L, "Goldschmidt", "Paul", null, null));
+
+        assertThat(this.search("schmidt")).containsExactly(2L, 6L);
+    }
+
+    @Test
+    void ordersEqualScoresByName() {
+        assertThat(this.search("ann")).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void findsByMailAndPhoneDigits() {
+        assertThat(this.search("peter@example.com")).containsExactly(2L);
+        assertThat(this.search("1711234")).containsExactly(1L);
+    }
+
+    @Test
+    void emptyQueryFindsNothing() {
+        assertThat(this.search(" - ")).isEmpty();
+    }
+
+    @Test
+    void appliesUpdatesAndRemovals() {
+        assertThat(this.search("schmidt")).containsExactly(2L);
+
+        this.customerSearchIndex.update(customer(4L, "Schmidtke", "Jan", null, null));
+        this.customerSearchIndex.remove(ORGANIZATION_ID, 2L);
+
+        assertThat(this.search("schmidt")).containsExactly(4L);
+        verify(this.customerRepository, times(1)).findAllByOrganizationId(ORGANIZATION_ID);
+    }
+
+    @Test
+    void keepsChangesCommittedDuringBuild() {
+        when(this.customerRepository.findAllByOrganizationId(ORGANIZATION_ID)).thenAnswer(invocation -> {
+            // committed by another thread while the customers are read
+            this.customerSearchIndex.update(customer(5L, "Weber", "Lena", null, null));
+            return Collections.emptyList();
+        });
+
+        assertThat(this.search("weber")).containsExactly(5L);
+    }
+}
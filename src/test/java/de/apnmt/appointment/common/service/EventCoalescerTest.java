@@ -0,0 +1,147 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.common.event.ApnmtEvent;
+import de.apnmt.common.event.ApnmtEventType;
+import de.apnmt.common.sender.ApnmtEventSender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class EventCoalescerTest {
+
+    private static final String TOPIC = "service-changed";
+
+    private final ManualClock clock = new ManualClock();
+
+    private ApnmtEventSender<String> sender;
+
+    private EventCoalescer coalescer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        this.sender = mock(ApnmtEventSender.class);
+        this.coalescer = new EventCoalescer(Duration.ofMillis(100), Duration.ofSeconds(1), this.clock, mock(ScheduledExecutorService.class));
+    }
+
+    private static ApnmtEvent<String> event(String value) {
+        return new ApnmtEvent<String>().type(ApnmtEventType.serviceCreated).value(value);
+    }
+
+    private List<String> sentValues(int count) {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<ApnmtEvent<String>> captor = ArgumentCaptor.forClass(ApnmtEvent.class);
+        verify(this.sender, times(count)).send(eq(TOPIC), captor.capture());
+        return captor.getAllValues().stream().map(ApnmtEvent::getValue).collect(Collectors.toList());
+    }
+
+    @Test
+    void sendsFewerEventsWithTheSameFinalState() {
+        for (int i = 1; i <= 5; i++) {
+            this.coalescer.send(this.sender, TOPIC, 1L, event("v" + i));
+            this.clock.advance(Duration.ofMillis(10));
+        }
+
+        this.coalescer.check(new EventCoalescer.Key(TOPIC, 1L));
+        verify(this.sender, never()).send(any(), any());
+
+        this.clock.advance(Duration.ofMillis(100));
+        this.coalescer.check(new EventCoalescer.Key(TOPIC, 1L));
+        assertThat(this.sentValues(1)).containsExactly("v5");
+    }
+
+    @Test
+    void sendsImmediatelyWithoutWindow() {
+        EventCoalescer immediate = new EventCoalescer(Duration.ZERO, Duration.ofSeconds(1), this.clock, null);
+        for (int i = 1; i <= 5; i++) {
+            immediate.send(this.sender, TOPIC, 1L, event("v" + i));
+        }
+
+        assertThat(this.sentValues(5)).containsExactly("v1", "v2", "v3", "v4", "v5");
+    }
+
+    @Test
+    void sendsAfterMaxDelayDespiteContinuousUpdates() {
+        for (int i = 1; i <= 20; i++) {
+            this.coalescer.send(this.sender, TOPIC, 1L, event("v" + i));
+            this.clock.advance(Duration.ofMillis(50));
+        }
+
+        this.coalescer.check(new EventCoalescer.Key(TOPIC, 1L));
+        assertThat(this.sentValues(1)).containsExactly("v20");
+    }
+
+    @Test
+    void keepsEventsOfDifferentEntitiesApart() {
+        this.coalescer.send(this.sender, TOPIC, 1L, event("a"));
+        this.coalescer.send(this.sender, TOPIC, 2L, event("b"));
+        this.clock.advance(Duration.ofMillis(100));
+
+        this.coalescer.check(new EventCoalescer.Key(TOPIC, 1L));
+        this.coalescer.check(new EventCoalescer.Key(TOPIC, 2L));
+        assertThat(this.sentValues(2)).containsExactly("a", "b");
+    }
+
+    @Test
+    void mergesValuesOfHeldBackEvents() {
+        this.coalescer.send(this.sender, TOPIC, 1L, event("name"), (previous, current) -> previous + "," + current);
+        this.coalescer.send(this.sender, TOPIC, 1L, event("cost"), (previous, current) -> previous + "," + current);
+        this.clock.advance(Duration.ofMillis(100));
+
+        this.coalescer.check(new EventCoalescer.Key(TOPIC, 1L));
+        assertThat(this.sentValues(1)).containsExactly("name,cost");
+    }
+
+    @Test
+    void flushesHeldBackEventsOnStop() {
+        this.coalescer.start();
+        this.coalescer.send(this.sender, TOPIC, 1L, event("v1"));
+        this.coalescer.send(this.sender, TOPIC, 1L, event("v2"));
+
+        this.coalescer.stop();
+
+        assertThat(this.sentValues(1)).containsExactly("v2");
+        assertThat(this.coalescer.isRunning()).isFalse();
+    }
+
+    private static final class ManualClock extends Clock {
+
+        private Instant now = Instant.parse("2026-10-19T10:00:00Z");
+
+        void advance(Duration duration) {
+            this.now = this.now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return this.now;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package de.apnmt.appointment.common.service;
+
+import de.apnmt.appointment.common.domain.Appointment;
+import de.apnmt.appointment.common.domain.RecurrenceRule;
+import de.apnmt.appointment.common.domain.enumeration.RecurrenceFrequency;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecurrenceExpanderTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 5, 9, 0);
+
+    private static Appointment series(RecurrenceFrequency frequency, int interval) {
+        return new Appointment()
+                .id(42L)
+                .organizationId(1L)
+                .employeeId(2L)
+                .startAt(START)
+                .endAt(START.plusHours(1))
+                .recurrenceRule(new RecurrenceRule().frequency(frequency).interval(interval));
+    }
+
+    private static List<LocalDateTime> starts(List<Appointment> occurrences) {
+        return occurrences.stream().map(Appointment::getStartAt).collect(Collectors.toList());
+    }
+
+    @Test
+    void singleAppointmentIsItsOwnOccurrence() {
+        Appointment appointment = new Appointment().id(1L).startAt(START).endAt(START.plusHours(1));
+
+        assertThat(RecurrenceExpander.expand(appointment, START.minusDays(1), START.plusDays(1))).containsExactly(appointment);
+        assertThat(RecurrenceExpander.expand(appointment, START.plusHours(1), START.plusDays(1))).isEmpty();
+        assertThat(RecurrenceExpander.expand(appointment, START.minusDays(1), START)).isEmpty();
+    }
+
+    @Test
+    void dailySeriesWithIntervalSkipsDays() {
+        List<Appointment> occurrences = RecurrenceExpander.expand(series(RecurrenceFrequency.DAILY, 2), START, START.plusDays(7));
+
+        assertThat(starts(occurrences)).containsExactly(START, START.plusDays(2), START.plusDays(4), START.plusDays(6));
+    }
+
+    @Test
+    void weeklySeriesWithInterval() {
+        List<Appointment> occurrences = RecurrenceExpander.expand(series(RecurrenceFrequency.WEEKLY, 2), START, START.plusDays(43));
+
+        assertThat(starts(occurrences)).containsExactly(START, START.plusWeeks(2), START.plusWeeks(4), START.plusWeeks(6));
+    }
+
+    @Test
+    void windowFarAfterStartBeginsAtFirstOverlappingOccurrence() {
+        LocalDateTime from = START.plusDays(1000).plusMinutes(30);
+
+        List<Appointment> occurrences = RecurrenceExpander.expand(series(RecurrenceFrequency.DAILY, 1), from, from.plusDays(2));
+
+        // the occurrence started before the window but still overlaps it
+        assertThat(starts(occurrences)).containsExactly(START.plusDays(1000), START.plusDays(1001), START.plusDays(1002));
+    }
+
+    @Test
+    void occurrenceEndingAtWindowStartIsExcluded() {
+        LocalDateTime from = START.plusDays(3).plusHours(1);
+
+        List<Appointment> occurrences = RecurrenceExpander.expand(series(RecurrenceFrequency.DAILY, 1), from, START.plusDays(5));
+
+        assertThat(starts(occurrences)).containsExactly(START.plusDays(4));
+    }
+
+    @Test
+    void untilIsInclusive() {
+        Appointment series = series(RecurrenceFrequency.DAILY, 1);
+        series.getRecurrenceRule().until(START.plusDays(2));
+
+        List<Appointment> occurrences = RecurrenceExpander.expand(series, START, START.plusDays(10));
+
+        assertThat(starts(occurrences)).containsExactly(START, START.plusDays(1), START.plusDays(2));
+    }
+
+    @Test
+    void exceptionsAreCancelled() {
+        Appointment series = series(RecurrenceFrequency.DAILY, 1);
+        series.getRecurrenceRule().addException(LocalDate.of(2026, 1, 6));
+
+        List<Appointment> occurrences = RecurrenceExpander.expand(series, START, START.plusDays(3));
+
+        assertThat(starts(occurrences)).containsExactly(START, START.plusDays(2));
+    }
+
+    @Test
+    void windowBeforeSeriesIsEmpty() {
+        assertThat(RecurrenceExpander.expand(series(RecurrenceFrequency.DAILY, 1), START.minusDays(10), START)).isEmpty();
+    }
+
+    @Test
+    void expandStartingSkipsOccurrencesStartedBeforeTheWindow() {
+        List<Appointment> occurrences = RecurrenceExpander.expandStarting(series(RecurrenceFrequency.DAILY, 1), START.plusMinutes(30), START.plusDays(3), 10);
+
+        assertThat(starts(occurrences)).containsExactly(START.plusDays(1), START.plusDays(2));
+    }
+
+    @Test
+    void expandStartingStopsAtTheLimit() {
+        List<Appointment> occurrences = RecurrenceExpander.expandStarting(series(RecurrenceFrequency.DAILY, 1), START, START.plusYears(10), 3);
+
+        assertThat(starts(occurrences)).containsExactly(START, START.plusDays(1), START.plusDays(2));
+    }
+
+    @Test
+    void isOccurrenceOnlyOnTheIntervalWithinTheSeries() {
+        Appointment series = series(RecurrenceFrequency.DAILY, 2);
+        series.getRecurrenceRule().until(START.plusDays(4));
+
+        assertThat(RecurrenceExpander.isOccurrence(series, START.toLocalDate())).isTrue();
+        assertThat(RecurrenceExpander.isOccurrence(series, START.toLocalDate().plusDays(4))).isTrue();
+        assertThat(RecurrenceExpander.isOccurrence(series, START.toLocalDate().plusDays(1))).isFalse();
+        assertThat(RecurrenceExpander.isOccurrence(series, START.toLocalDate().minusDays(2))).isFalse();
+        assertThat(RecurrenceExpander.isOccurrence(series, START.toLocalDate().plusDays(6))).isFalse();
+    }
+
+    @Test
+    void occurrencesAreTransientCopiesOfTheSeries() {
+        Appointment series = series(RecurrenceFrequency.WEEKLY, 1);
+
+        List<Appointment> occurrences = RecurrenceExpander.expand(series, START.plusDays(6), START.plusDays(8));
+
+        assertThat(occurrences).hasSize(1);
+        Appointment occurrence = occurrences.get(0);
+        assertThat(occurrence).isNotSameAs(series);
+        assertThat(occurrence.getId()).isEqualTo(42L);
+        assertThat(occurrence.getEmployeeId()).isEqualTo(2L);
+        assertThat(occurrence.getStartAt()).isEqualTo(START.plusWeeks(1));
+        assertThat(occurrence.getEndAt()).isEqualTo(START.plusWeeks(1).plusHours(1));
+        assertThat(occurrence.getRecurrenceRule()).isSameAs(series.getRecurrenceRule());
+    }
+}
@@ -0,0 +1,38 @@
+package de.apnmt.appointment.common.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingLimitsTest {
+
+    private final StreamingLimits streamingLimits = new StreamingLimits(new SimpleMeterRegistry(), 1, Duration.ofDays(1));
+
+    @Test
+    void rejectsStreamsBeyondTheLimit() {
+        this.streamingLimits.acquire();
+
+        assertThatThrownBy(this.streamingLimits::acquire).isInstanceOf(AdmissionRejectedException.class);
+    }
+
+    @Test
+    void releasingAPermitTwiceReturnsItOnce() {
+        StreamingLimits.Permit permit = this.streamingLimits.acquire();
+        permit.release();
+        permit.release();
+
+        this.streamingLimits.acquire();
+        assertThatThrownBy(this.streamingLimits::acquire).isInstanceOf(AdmissionRejectedException.class);
+    }
+
+    @Test
+    void releasedPermitCanBeTakenAgain() {
+        this.streamingLimits.acquire().release();
+
+        assertThatCode(this.streamingLimits::acquire).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,130 @@
+package de.apnmt.appointment.common.sharding;
+
+import de.apnmt.appointment.common.config.ShardingConfiguration;
+import de.apnmt.appointment.common.domain.Service;
+import liquibase.integration.spring.SpringLiquibase;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardRoutingTest {
+
+    private static final long ORGANIZATION_A = 0L;
+
+    private static final long ORGANIZATION_B = 1L;
+
+    private final Map<String, DataSource> shards = new LinkedHashMap<>();
+
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (String shard : new String[] { "a", "b" }) {
+            DataSource shardDataSource = new DriverManagerDataSource("jdbc:h2:mem:" + shard + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(shardDataSource);
+            liquibase.setChangeLog("classpath:config/liquibase/master.xml");
+            liquibase.setContexts("test");
+            liquibase.setResourceLoader(new DefaultResourceLoader());
+            liquibase.afterPropertiesSet();
+            this.shards.put(shard, shardDataSource);
+        }
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource(this.shards, "a", new ModuloShardResolver(this.shards.keySet(), Collections.emptyMap()));
+        dataSource.afterPropertiesSet();
+
+        Map<String, Object> hibernateProperties = new HashMap<>();
+        new ShardingConfiguration().shardingHibernatePropertiesCustomizer(dataSource).customize(hibernateProperties);
+        hibernateProperties.put(AvailableSettings.PHYSICAL_NAMING_STRATEGY, SpringPhysicalNamingStrategy.class.getName());
+        hibernateProperties.put(AvailableSettings.IMPLICIT_NAMING_STRATEGY, SpringImplicitNamingStrategy.class.getName());
+
+        this.entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        this.entityManagerFactoryBean.setDataSource(dataSource);
+        this.entityManagerFactoryBean.setPackagesToScan("de.apnmt.appointment.common.domain");
+        this.entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        this.entityManagerFactoryBean.setJpaPropertyMap(hibernateProperties);
+        this.entityManagerFactoryBean.afterPropertiesSet();
+        this.entityManagerFactory = this.entityManagerFactoryBean.getObject();
+        this.transactionTemplate = new TransactionTemplate(new JpaTransactionManager(this.entityManagerFactory));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.entityManagerFactoryBean.destroy();
+        for (DataSource shardDataSource : this.shards.values()) {
+            new JdbcTemplate(shardDataSource).execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    void insertsIntoSeveralShardsWithoutDuplicateIds() {
+        // batches of 30 interleave the id blocks of 50 fetched from the two sequences
+        for (int batch = 0; batch < 4; batch++) {
+            this.insertServices(ORGANIZATION_A, 30);
+            this.insertServices(ORGANIZATION_B, 30);
+        }
+
+        assertThat(this.countServices("a", ORGANIZATION_A)).isEqualTo(120);
+        assertThat(this.countServices("a", ORGANIZATION_B)).isZero();
+        assertThat(this.countServices("b", ORGANIZATION_B)).isEqualTo(120);
+        assertThat(this.countServices("b", ORGANIZATION_A)).isZero();
+    }
+
+    @Test
+    void bindsShardWithoutOrganization() {
+        this.insertServices(ORGANIZATION_B, 1);
+
+        Long count = ShardContext.callOnShard("b", () -> this.transactionTemplate.execute(status -> this.entityManager()
+                .createQuery("select count(s) from Service s", Long.class)
+                .getSingleResult()));
+
+        assertThat(count).isEqualTo(1L);
+        assertThat(ShardContext.isBound()).isFalse();
+    }
+
+    private void insertServices(long organizationId, int count) {
+        ShardContext.callWithOrganization(organizationId, () -> this.transactionTemplate.execute(status -> {
+            EntityManager entityManager = this.entityManager();
+            for (int i = 0; i < count; i++) {
+                Service service = new Service().name("Service " + i).description("Description").duration(30).cost(10.0).organizationId(organizationId);
+                service.setCreatedBy("test");
+                entityManager.persist(service);
+            }
+            entityManager.flush();
+            return null;
+        }));
+    }
+
+    private EntityManager entityManager() {
+        return EntityManagerFactoryUtils.getTransactionalEntityManager(this.entityManagerFactory);
+    }
+
+    private long countServices(String shard, long organizationId) {
+        return new JdbcTemplate(this.shards.get(shard)).queryForObject("select count(*) from service where organization_id = ?", Long.class, organizationId);
+    }
+}
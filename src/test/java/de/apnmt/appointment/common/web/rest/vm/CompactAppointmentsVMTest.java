@@ -0,0 +1,104 @@
+package de.apnmt.appointment.common.web.rest.vm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.apnmt.appointment.common.service.dto.AppointmentDTO;
+import de.apnmt.appointment.common.service.dto.CustomerDTO;
+import de.apnmt.appointment.common.service.dto.ServiceDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactAppointmentsVMTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 19, 9, 0);
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static CustomerDTO customer(long id) {
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(id);
+        customer.setFirstName("Jane");
+        customer.setLastName("Doe " + id);
+        customer.setMail("jane" + id + "@example.com");
+        customer.setOrganizationId(1L);
+        return customer;
+    }
+
+    private static ServiceDTO service(long id) {
+        ServiceDTO service = new ServiceDTO();
+        service.setId(id);
+        service.setName("Service " + id);
+        service.setDuration(30);
+        service.setCost(25.0);
+        service.setOrganizationId(1L);
+        return service;
+    }
+
+    private static AppointmentDTO appointment(long id, CustomerDTO customer, ServiceDTO service) {
+        AppointmentDTO appointment = new AppointmentDTO();
+        appointment.setId(id);
+        appointment.setStartAt(START.plusHours(id));
+        appointment.setEndAt(START.plusHours(id).plusMinutes(30));
+        appointment.setOrganizationId(1L);
+        appointment.setEmployeeId(2L);
+        appointment.setCustomer(customer);
+        appointment.setService(service);
+        return appointment;
+    }
+
+    @Test
+    void sendsEveryCustomerAndServiceOnce() {
+        CustomerDTO jane = customer(10);
+        CustomerDTO john = customer(11);
+        ServiceDTO cut = service(20);
+        List<AppointmentDTO> appointments = Arrays.asList(appointment(1, jane, cut), appointment(2, john, cut), appointment(3, jane, cut));
+
+        CompactAppointmentsVM compact = new CompactAppointmentsVM(1L, appointments);
+
+        assertThat(compact.getOrganizationId()).isEqualTo(1L);
+        assertThat(compact.getCustomers()).containsOnlyKeys(10L, 11L);
+        assertThat(compact.getServices()).containsOnlyKeys(20L);
+        assertThat(compact.getAppointments()).extracting(CompactAppointmentVM::getId).containsExactly(1L, 2L, 3L);
+        assertThat(compact.getAppointments()).extracting(CompactAppointmentVM::getCustomerId).containsExactly(10L, 11L, 10L);
+        assertThat(compact.getAppointments()).extracting(CompactAppointmentVM::getServiceId).containsOnly(20L);
+    }
+
+    @Test
+    void leavesOutMissingReferencesAndNullProperties() throws Exception {
+        CompactAppointmentsVM compact = new CompactAppointmentsVM(1L, Collections.singletonList(appointment(1, null, null)));
+
+        JsonNode json = this.mapper.valueToTree(compact);
+        JsonNode appointment = json.get("appointments").get(0);
+
+        assertThat(json.get("customers").size()).isZero();
+        assertThat(json.get("services").size()).isZero();
+        assertThat(appointment.has("customerId")).isFalse();
+        assertThat(appointment.has("serviceId")).isFalse();
+        assertThat(appointment.has("recurrenceRule")).isFalse();
+        assertThat(appointment.has("organizationId")).isFalse();
+        assertThat(appointment.get("startAt").asText()).isEqualTo("2026-10-19T10:00:00");
+    }
+
+    @Test
+    void isSmallerThanTheFullList() throws Exception {
+        CustomerDTO jane = customer(10);
+        ServiceDTO cut = service(20);
+        List<AppointmentDTO> appointments = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            appointments.add(appointment(id, jane, cut));
+        }
+
+        byte[] full = this.mapper.writeValueAsBytes(appointments);
+        byte[] compact = this.mapper.writeValueAsBytes(new CompactAppointmentsVM(1L, appointments));
+
+        assertThat(compact.length).isLessThan(full.length / 2);
+    }
+}